@@ -1,20 +1,28 @@
 package com.generation;
 
+import com.generation.gui.BackgroundTasks;
+import com.generation.gui.StudentTable;
 import com.generation.model.Course;
 import com.generation.model.Student;
 import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
 import com.generation.service.StudentService;
+import com.generation.utils.DateParser;
+import com.generation.utils.SummaryRenderer;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.text.ParseException;
-import java.util.Date;
-import java.util.List;
+import java.util.Collection;
+import java.util.function.Consumer;
 
-public class StudentGenGUI extends Frame {
+public class StudentGenGUI extends Frame implements BackgroundTasks.ProgressView {
     private StudentService studentService;
     private CourseService courseService;
 
+    // Service calls run on these workers so the event thread only handles input and painting
+    private BackgroundTasks tasks;
+    private BackgroundTasks.Task currentTask;
+
     // UI Components
     private Panel mainPanel;
     private TextArea outputArea;
@@ -23,11 +31,15 @@ public class StudentGenGUI extends Frame {
     private TextField nameField;
     private TextField emailField;
     private TextField birthDateField;
+    private Label statusLabel;
+    private Button cancelTaskBtn;
 
     public StudentGenGUI() {
         // Initialize services
-        studentService = new StudentService();
-        courseService = new CourseService();
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        studentService = new StudentService(enrollments);
+        courseService = new CourseService(enrollments);
+        tasks = new BackgroundTasks(this);
 
         // Setup Frame
         setTitle("StudentGen Management System");
@@ -38,10 +50,12 @@ public class StudentGenGUI extends Frame {
         // Create components
         createMenuPanel();
         createOutputArea();
+        createStatusBar();
 
         // Window closing event
         addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent e) {
+                tasks.shutdown();
                 System.exit(0);
             }
         });
@@ -102,60 +116,58 @@ public class StudentGenGUI extends Frame {
         add(outputArea, BorderLayout.CENTER);
     }
 
-    // NEW: Helper method to parse and validate dates
-    private java.util.Date parseDateFromString(String dateStr) {
-        try {
-            // Expected format: DD/MM/YYYY
-            String[] parts = dateStr.split("/");
-
-            if (parts.length != 3) {
-                return null;
+    private void createStatusBar() {
+        Panel statusPanel = new Panel(new BorderLayout(5, 5));
+        statusPanel.setBackground(new Color(240, 240, 240));
+
+        statusLabel = new Label("Ready");
+        cancelTaskBtn = new Button("Cancel");
+        cancelTaskBtn.setEnabled(false);
+        cancelTaskBtn.addActionListener(e -> {
+            if (currentTask != null) {
+                currentTask.cancel();
+                outputArea.append("✗ " + currentTask.getName() + " cancelled.\n\n");
             }
+        });
 
-            int day = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]);
-            int year = Integer.parseInt(parts[2]);
-
-            // Basic validation
-            if (month < 1 || month > 12) {
-                return null;
-            }
-
-            if (day < 1 || day > 31) {
-                return null;
-            }
-
-            if (year < 1900 || year > 2024) {
-                return null;
-            }
-
-            // Validate days in month
-            int[] daysInMonth = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
-
-            // Check for leap year
-            if (isLeapYear(year)) {
-                daysInMonth[1] = 29;
-            }
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(cancelTaskBtn, BorderLayout.EAST);
+        add(statusPanel, BorderLayout.SOUTH);
+    }
 
-            if (day > daysInMonth[month - 1]) {
-                return null;
-            }
+    // Runs a service call on a worker; text published by the job is appended to the output area
+    private <T> void runInBackground(String name, BackgroundTasks.Job<T> job, Consumer<T> onSuccess) {
+        tasks.submit(name, job, outputArea::append, onSuccess,
+                ex -> outputArea.append("✗ Error: " + ex.getMessage() + "\n\n"));
+    }
 
-            // Create date using Calendar (month is 0-indexed in Calendar)
-            java.util.Calendar cal = java.util.Calendar.getInstance();
-            cal.set(year, month - 1, day, 0, 0, 0);
-            cal.set(java.util.Calendar.MILLISECOND, 0);
+    @Override
+    public void taskStarted(BackgroundTasks.Task task) {
+        currentTask = task;
+        statusLabel.setText(task.getName() + "...");
+        cancelTaskBtn.setEnabled(true);
+    }
 
-            return cal.getTime();
+    @Override
+    public void progressChanged(BackgroundTasks.Task task, long done, long total) {
+        if (task == currentTask) {
+            statusLabel.setText(task.getName() + ": " + done + " of " + total);
+        }
+    }
 
-        } catch (NumberFormatException e) {
-            return null;
+    @Override
+    public void taskFinished(BackgroundTasks.Task task) {
+        if (task == currentTask) {
+            currentTask = null;
+            statusLabel.setText("Ready");
+            cancelTaskBtn.setEnabled(false);
         }
     }
 
-    // NEW: Helper method to check leap year
-    private boolean isLeapYear(int year) {
-        return (year % 4 == 0 && year % 100 != 0) || (year % 400 == 0);
+    // NEW: Helper method to parse and validate dates (rules shared with the bulk importer)
+    // Returns the epoch day, or DateParser.INVALID
+    private int parseDateFromString(String dateStr) {
+        return DateParser.parseEpochDay(dateStr);
     }
 
     // 1. Register Student (UPDATED with complete validation)
@@ -212,14 +224,7 @@ public class StudentGenGUI extends Frame {
                     return;
                 }
 
-                // 3. Check if student ID already exists
-                if (studentService.findStudent(id) != null) {
-                    outputArea.append("✗ ERROR: Student ID '" + id + "' already exists!\n\n");
-                    dialog.dispose();
-                    return;
-                }
-
-                // 4. Validate Name (letters, spaces, hyphens only, 2-50 characters)
+                // 3. Validate Name (letters, spaces, hyphens only, 2-50 characters)
                 if (!name.matches("^[a-zA-Z\\s\\-]{2,50}$")) {
                     outputArea.append("✗ ERROR: Invalid name!\n");
                     outputArea.append("Name must contain only letters, spaces, or hyphens (2-50 characters).\n\n");
@@ -227,7 +232,7 @@ public class StudentGenGUI extends Frame {
                     return;
                 }
 
-                // 5. Validate Email format
+                // 4. Validate Email format
                 if (!isValidEmail(email)) {
                     outputArea.append("✗ ERROR: Invalid email format!\n");
                     outputArea.append("Email must be in format: example@domain.com\n\n");
@@ -235,31 +240,36 @@ public class StudentGenGUI extends Frame {
                     return;
                 }
 
-                // 6. Parse and validate date
-                java.util.Date birthDate = parseDateFromString(birthDateStr);
-                if (birthDate == null) {
+                // 5. Parse and validate date
+                int birthDate = parseDateFromString(birthDateStr);
+                if (birthDate == DateParser.INVALID) {
                     outputArea.append("✗ ERROR: Invalid date format!\n");
                     outputArea.append("Please use DD/MM/YYYY format (e.g., 16/01/2018)\n\n");
                     dialog.dispose();
                     return;
                 }
 
-                // 7. Check if date is not in the future
-                if (birthDate.after(new java.util.Date())) {
+                // 6. Check if date is not in the future
+                if (birthDate > DateParser.today()) {
                     outputArea.append("✗ ERROR: Birth date cannot be in the future!\n\n");
                     dialog.dispose();
                     return;
                 }
 
-                // All validations passed - create student
-                Student student = new Student(id, name, email, birthDate);
-                studentService.subscribeStudent(student);
-
-                outputArea.append("✓ Student registered successfully!\n");
-                outputArea.append("ID: " + id + ", Name: " + name + "\n");
-                outputArea.append("Email: " + email + "\n");
-                outputArea.append("Birth Date: " + birthDateStr + "\n\n");
+                // 7. Create the student on a worker, unless the student ID already exists
                 dialog.dispose();
+                runInBackground("Register student", task -> {
+                    return studentService.subscribeIfAbsent(new Student(id, name, email, birthDate));
+                }, registered -> {
+                    if (!registered) {
+                        outputArea.append("✗ ERROR: Student ID '" + id + "' already exists!\n\n");
+                        return;
+                    }
+                    outputArea.append("✓ Student registered successfully!\n");
+                    outputArea.append("ID: " + id + ", Name: " + name + "\n");
+                    outputArea.append("Email: " + email + "\n");
+                    outputArea.append("Birth Date: " + birthDateStr + "\n\n");
+                });
 
             } catch (Exception ex) {
                 outputArea.append("✗ Error: " + ex.getMessage() + "\n\n");
@@ -299,15 +309,19 @@ public class StudentGenGUI extends Frame {
 
         findBtn.addActionListener(e -> {
             String studentId = studentIdField.getText();
-            Student student = studentService.findStudent(studentId);
-
-            if (student != null) {
-                outputArea.append("✓ Student Found:\n");
-                outputArea.append(student.toString() + "\n\n");
-            } else {
-                outputArea.append("✗ Student with ID " + studentId + " not found.\n\n");
-            }
             dialog.dispose();
+
+            runInBackground("Find student", task -> {
+                Student student = studentService.findStudent(studentId);
+                return student != null ? student.toString() : null;
+            }, student -> {
+                if (student != null) {
+                    outputArea.append("✓ Student Found:\n");
+                    outputArea.append(student + "\n\n");
+                } else {
+                    outputArea.append("✗ Student with ID " + studentId + " not found.\n\n");
+                }
+            });
         });
 
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -341,39 +355,34 @@ public class StudentGenGUI extends Frame {
         gradeBtn.addActionListener(e -> {
             String studentId = studentIdField.getText();
             String courseCode = courseCodeField.getText();
+            dialog.dispose();
 
-            Student student = studentService.findStudent(studentId);
-
-            if (student == null) {
-                outputArea.append("✗ Student not found.\n\n");
-                dialog.dispose();
-                return;
-            }
+            runInBackground("Grade student", task -> {
+                Student student = studentService.findStudent(studentId);
 
-            if (!student.isCourseApproved(courseCode)) {
-                outputArea.append("✗ Student not enrolled in course: " + courseCode + "\n\n");
-                dialog.dispose();
-                return;
-            }
+                if (student == null) {
+                    task.publish("✗ Student not found.\n\n");
+                    return null;
+                }
 
-            Course course = null;
-            for (Course c : student.getApprovedCourses()) {
-                if (c.getCode().equals(courseCode)) {
-                    course = c;
-                    break;
+                if (!student.isCourseApproved(courseCode)) {
+                    task.publish("✗ Student not enrolled in course: " + courseCode + "\n\n");
+                    return null;
                 }
-            }
 
-            if (course != null) {
-                studentService.gradeStudent(studentId, course);
+                Course course = student.getCourse(courseCode);
 
-                Double grade = student.getGradeForCourse(courseCode);
-                outputArea.append("✓ Student " + studentId + " graded in " + course.getName() + "\n");
-                outputArea.append("Grade: " + String.format("%.2f", grade) + "/100\n");
-                outputArea.append(grade >= 50 ? "Status: ✓ PASSED\n\n" : "Status: ✗ FAILED\n\n");
-            }
+                if (course != null) {
+                    studentService.gradeStudent(studentId, course);
 
-            dialog.dispose();
+                    Double grade = student.getGradeForCourse(courseCode);
+                    task.publish("✓ Student " + studentId + " graded in " + course.getName() + "\n"
+                            + "Grade: " + String.format("%.2f", grade) + "/100\n"
+                            + (grade >= 50 ? "Status: ✓ PASSED\n\n" : "Status: ✗ FAILED\n\n"));
+                }
+                return null;
+            }, result -> {
+            });
         });
 
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -407,21 +416,23 @@ public class StudentGenGUI extends Frame {
         enrollBtn.addActionListener(e -> {
             String studentId = studentIdField.getText();
             String courseCode = courseCodeField.getText();
+            dialog.dispose();
 
-            Student student = studentService.findStudent(studentId);
-            Course course = courseService.getCourse(courseCode);
-
-            if (student == null) {
-                outputArea.append("✗ Invalid Student ID\n\n");
-            } else if (course == null) {
-                outputArea.append("✗ Invalid Course Code\n\n");
-            } else {
-                courseService.enrollStudent(courseCode, student);
-                studentService.enrollToCourse(studentId, course);
-                outputArea.append("✓ Student " + studentId + " enrolled in " + course.getName() + "\n\n");
-            }
+            runInBackground("Enroll student", task -> {
+                Student student = studentService.findStudent(studentId);
+                Course course = courseService.getCourse(courseCode);
 
-            dialog.dispose();
+                if (student == null) {
+                    task.publish("✗ Invalid Student ID\n\n");
+                } else if (course == null) {
+                    task.publish("✗ Invalid Course Code\n\n");
+                } else {
+                    courseService.enrollStudent(courseCode, student);
+                    task.publish("✓ Student " + studentId + " enrolled in " + course.getName() + "\n\n");
+                }
+                return null;
+            }, result -> {
+            });
         });
 
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -431,51 +442,52 @@ public class StudentGenGUI extends Frame {
     }
 
     // 5. Show Students Summary
+    // Opens a paginated table that only renders the visible rows, so it stays responsive at any roster size
     private void showStudentsSummary() {
-        outputArea.append("═══════════════════════════════════════\n");
-        outputArea.append("          STUDENTS SUMMARY\n");
-        outputArea.append("═══════════════════════════════════════\n\n");
-
-        // Use a StringBuilder to capture the output
-        StringBuilder summary = new StringBuilder();
-
-        for (String key : studentService.getStudents().keySet()) {
-            Student student = studentService.findStudent(key);
-            summary.append(student.toString()).append("\n");
-
-            List<Course> enrolledCourses = student.getApprovedCourses();
-
-            if (enrolledCourses.size() > 0) {
-                summary.append("  Enrolled Courses:\n");
-                for (Course course : enrolledCourses) {
-                    summary.append("  - ").append(course.toString()).append("\n");
-                    Double grade = student.getGradeForCourse(course.getCode());
-                    if (grade != null) {
-                        summary.append("    Grade: ").append(String.format("%.2f", grade)).append("/100\n");
-                    }
-                }
-            } else {
-                summary.append("  No courses enrolled.\n");
+        Dialog dialog = new Dialog(this, "Students Summary", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.setSize(720, 500);
+        dialog.add(new StudentTable(studentService), BorderLayout.CENTER);
+        dialog.addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                dialog.dispose();
             }
-            summary.append("\n");
-        }
+        });
 
-        outputArea.append(summary.toString());
-        outputArea.append("═══════════════════════════════════════\n\n");
+        outputArea.append("Students summary opened in a separate window.\n\n");
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
     }
 
     // 6. Show Courses Summary
+    // Rendered roster by roster on a worker; the text streams in as it is produced and can be cancelled
     private void showCoursesSummary() {
         outputArea.append("═══════════════════════════════════════\n");
         outputArea.append("          COURSES SUMMARY\n");
         outputArea.append("═══════════════════════════════════════\n\n");
 
-        courseService.showSummary();
-
-        // Since CourseService prints to console, let's manually add to outputArea
-        outputArea.append("Course details displayed in console.\n");
-        outputArea.append("Available courses: INTRO-CS-1, INTRO-CS-2, INTRO-CS-3, etc.\n\n");
-        outputArea.append("═══════════════════════════════════════\n\n");
+        runInBackground("Courses summary", task -> {
+            StringBuilder chunk = new StringBuilder();
+            SummaryRenderer renderer = new SummaryRenderer(chunk);
+            renderer.renderCatalog(courseService);
+            chunk.append("Enrolled Students\n");
+
+            Collection<String> courseCodes = courseService.getEnrolledCourseCodes();
+            long done = 0;
+            for (String courseCode : courseCodes) {
+                if (task.isCancelled()) {
+                    return null;
+                }
+                renderer.renderRoster(courseService, courseCode);
+                task.publish(chunk);
+                chunk.setLength(0);
+                task.progress(++done, courseCodes.size());
+            }
+            chunk.append("\n═══════════════════════════════════════\n\n");
+            task.publish(chunk);
+            return null;
+        }, result -> {
+        });
     }
 
     // 7. Show Course Average
@@ -497,24 +509,28 @@ public class StudentGenGUI extends Frame {
 
         showBtn.addActionListener(e -> {
             String courseCode = courseCodeField.getText();
-            Course course = courseService.getCourse(courseCode);
+            dialog.dispose();
+
+            runInBackground("Course average", task -> {
+                Course course = courseService.getCourse(courseCode);
 
-            if (course == null) {
-                outputArea.append("✗ Course not found\n\n");
-            } else {
+                if (course == null) {
+                    task.publish("✗ Course not found\n\n");
+                    return null;
+                }
                 double average = studentService.getCourseAverageGrade(courseCode);
 
                 if (average == -1) {
-                    outputArea.append("✗ No students have been graded in " + courseCode + "\n\n");
+                    task.publish("✗ No students have been graded in " + courseCode + "\n\n");
                 } else {
-                    outputArea.append("═══════════════════════════════════════\n");
-                    outputArea.append("Course: " + course.getName() + " (" + courseCode + ")\n");
-                    outputArea.append("Average Grade: " + String.format("%.2f", average) + "/100\n");
-                    outputArea.append("═══════════════════════════════════════\n\n");
+                    task.publish("═══════════════════════════════════════\n"
+                            + "Course: " + course.getName() + " (" + courseCode + ")\n"
+                            + "Average Grade: " + String.format("%.2f", average) + "/100\n"
+                            + "═══════════════════════════════════════\n\n");
                 }
-            }
-
-            dialog.dispose();
+                return null;
+            }, result -> {
+            });
         });
 
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -1,22 +1,44 @@
 package com.generation;
 
+import com.generation.http.ApiServer;
+import com.generation.metrics.Metrics;
 import com.generation.model.Course;
 import com.generation.model.Student;
 import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
 import com.generation.service.StudentService;
+import com.generation.storage.StorageEngine;
 import com.generation.utils.PrinterHelper;
 
-import java.text.ParseException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 public class Main
 {
 
+    // Pass --data-dir <directory> to keep students, enrollments and grades between runs, and
+    // --http <port> to serve the JSON API (see ApiServer) next to the menu
     public static void main( String[] args )
-            throws ParseException
+            throws IOException
     {
-        StudentService studentService = new StudentService();
-        CourseService courseService = new CourseService();
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        StudentService studentService = new StudentService( enrollments );
+        CourseService courseService = new CourseService( enrollments );
+        StorageEngine storage = null;
+        ApiServer api = null;
+        for ( int i = 0; i + 1 < args.length; i += 2 )
+        {
+            if ( args[i].equals( "--data-dir" ) )
+            {
+                storage = StorageEngine.open( Path.of( args[i + 1] ), studentService, courseService );
+            }
+            else if ( args[i].equals( "--http" ) )
+            {
+                api = ApiServer.start( Integer.parseInt( args[i + 1] ), studentService, courseService );
+                System.out.println( "Serving the API on http://localhost:" + api.getPort() + "/" );
+            }
+        }
         Scanner scanner = new Scanner( System.in );
         int option = 0;
         do
@@ -46,9 +68,20 @@ public class Main
                 case 7:
                     showCourseAverageGrade( studentService, courseService, scanner );
                     break;
+                case 8:
+                    showMetrics();
+                    break;
             }
         }
-        while ( option != 8 );
+        while ( option != 9 );
+        if ( api != null )
+        {
+            api.close();
+        }
+        if ( storage != null )
+        {
+            storage.close();
+        }
     }
 
     private static void enrollStudentToCourse( StudentService studentService, CourseService courseService,
@@ -72,8 +105,16 @@ public class Main
             return;
         }
         System.out.println( course );
-        courseService.enrollStudent( courseId, student );
-        studentService.enrollToCourse( studentId, course );
+        // updates the course roster and the student's courses together
+        try
+        {
+            courseService.enrollStudent( courseId, student );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            System.out.println( e.getMessage() );
+            return;
+        }
         System.out.println( "Student with ID: " + studentId + " enrolled successfully to " + courseId );
 
     }
@@ -83,6 +124,12 @@ public class Main
         courseService.showSummary();
     }
 
+    // Call counts and latency quantiles of the service operations, in Prometheus text format
+    private static void showMetrics()
+    {
+        System.out.print( Metrics.dump() );
+    }
+
     private static void showStudentsSummary( StudentService studentService, Scanner scanner )
     {
         studentService.showSummary();
@@ -102,16 +149,7 @@ public class Main
 
             if (courseFound)
             {
-                Course courseToGrade = null;
-
-                for (Course c : student.getApprovedCourses())
-                {
-                    if (c.getCode().equals(courseCode))
-                    {
-                        courseToGrade = c;
-                        break;
-                    }
-                }
+                Course courseToGrade = student.getCourse(courseCode);
 
                 // Auto-grade (no user input needed - random grade generated)
                 studentService.gradeStudent(studentId, courseToGrade);
@@ -144,10 +182,16 @@ public class Main
     }
 
     private static void registerStudent( StudentService studentService, Scanner scanner )
-            throws ParseException
     {
         Student student = PrinterHelper.createStudentMenu( scanner );
-        studentService.subscribeStudent( student );
+        try
+        {
+            studentService.subscribeStudent( student );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            System.out.println( e.getMessage() );
+        }
     }
 
     // CHALLENGE: Show average grade for a course
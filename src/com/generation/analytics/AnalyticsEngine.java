@@ -0,0 +1,121 @@
+package com.generation.analytics;
+
+import com.generation.model.CourseCodes;
+import com.generation.service.CourseService;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Aggregates a GradeSnapshot into an AnalyticsReport. The grade rows and the student rows are
+// split into ranges that fork-join tasks fold into per-course and per-birth-year totals; the
+// partial totals are then added together. A sequential engine runs the same fold on one thread.
+public class AnalyticsEngine
+{
+    // Rows per leaf task; small enough to balance, large enough to amortize the task overhead
+    private static final int SPLIT_THRESHOLD = 1 << 15;
+
+    private final ForkJoinPool pool;
+
+    private AnalyticsEngine( ForkJoinPool pool )
+    {
+        this.pool = pool;
+    }
+
+    public static AnalyticsEngine sequential()
+    {
+        return new AnalyticsEngine( null );
+    }
+
+    // Runs on the common pool, so a report uses every core
+    public static AnalyticsEngine parallel()
+    {
+        return new AnalyticsEngine( ForkJoinPool.commonPool() );
+    }
+
+    public static AnalyticsEngine parallel( ForkJoinPool pool )
+    {
+        return new AnalyticsEngine( pool );
+    }
+
+    public AnalyticsReport analyze( GradeSnapshot snapshot, CourseService courseService )
+    {
+        int courseSlots = CourseCodes.size();
+        FoldTask task = new FoldTask( snapshot, courseSlots, pool != null, 0, snapshot.getGradeCount(), 0,
+                                      snapshot.getStudentRows() );
+        Totals totals = pool != null ? pool.invoke( task ) : task.compute();
+        return new AnalyticsReport( totals, courseService );
+    }
+
+    // Folds grade rows [gradeFrom, gradeTo) and student rows [studentFrom, studentTo)
+    private static final class FoldTask
+        extends RecursiveTask<Totals>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final GradeSnapshot snapshot;
+
+        private final int courseSlots;
+
+        // Whether to split; a sequential fold may still be called from some pool's worker thread
+        private final boolean parallel;
+
+        private final int gradeFrom;
+
+        private final int gradeTo;
+
+        private final int studentFrom;
+
+        private final int studentTo;
+
+        FoldTask( GradeSnapshot snapshot, int courseSlots, boolean parallel, int gradeFrom, int gradeTo,
+                  int studentFrom, int studentTo )
+        {
+            this.snapshot = snapshot;
+            this.courseSlots = courseSlots;
+            this.parallel = parallel;
+            this.gradeFrom = gradeFrom;
+            this.gradeTo = gradeTo;
+            this.studentFrom = studentFrom;
+            this.studentTo = studentTo;
+        }
+
+        @Override
+        protected Totals compute()
+        {
+            if ( gradeTo - gradeFrom + studentTo - studentFrom <= SPLIT_THRESHOLD || !parallel )
+            {
+                return fold();
+            }
+            int gradeMiddle = ( gradeFrom + gradeTo ) >>> 1;
+            int studentMiddle = ( studentFrom + studentTo ) >>> 1;
+            FoldTask left =
+                new FoldTask( snapshot, courseSlots, true, gradeFrom, gradeMiddle, studentFrom, studentMiddle );
+            FoldTask right =
+                new FoldTask( snapshot, courseSlots, true, gradeMiddle, gradeTo, studentMiddle, studentTo );
+            left.fork();
+            Totals totals = right.compute();
+            totals.add( left.join() );
+            return totals;
+        }
+
+        private Totals fold()
+        {
+            Totals totals = new Totals( courseSlots );
+            for ( int row = gradeFrom; row < gradeTo; row++ )
+            {
+                totals.addGrade( snapshot.courseOf( row ), snapshot.birthYearOf( snapshot.studentOf( row ) ),
+                                 snapshot.gradeOf( row ) );
+            }
+            for ( int student = studentFrom; student < studentTo; student++ )
+            {
+                if ( !snapshot.isPresent( student ) )
+                {
+                    continue;
+                }
+                totals.addStudent( snapshot.birthYearOf( student ), snapshot.enrolledCreditsOf( student ),
+                                   snapshot.passedCreditsOf( student ) );
+            }
+            return totals;
+        }
+    }
+}
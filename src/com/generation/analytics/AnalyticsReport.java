@@ -0,0 +1,185 @@
+package com.generation.analytics;
+
+import com.generation.model.Course;
+import com.generation.model.CourseCodes;
+import com.generation.model.Module;
+import com.generation.service.CourseService;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Result of one analytics run. Averages and rates are -1 when there is nothing to average.
+public class AnalyticsReport
+{
+    private final Totals totals;
+
+    private final Map<String, Stats> modules = new TreeMap<>();
+
+    private final SortedMap<Integer, Cohort> cohorts = new TreeMap<>();
+
+    private final Cohort unknownCohort;
+
+    private final Cohort overall;
+
+    AnalyticsReport( Totals totals, CourseService courseService )
+    {
+        this.totals = totals;
+        for ( Course course : courseService.getCourses() )
+        {
+            Module module = course.getModule();
+            int courseId = CourseCodes.idOf( course.getCode() );
+            if ( module != null && courseId >= 0 && courseId < totals.courseGrades.length )
+            {
+                modules.computeIfAbsent( module.getCode(), code -> new Stats() )
+                    .add( totals.courseGrades[courseId], totals.courseSum[courseId], totals.coursePassed[courseId] );
+            }
+        }
+        overall = new Cohort();
+        for ( int slot = 0; slot < Totals.YEARS; slot++ )
+        {
+            if ( totals.cohortStudents[slot] > 0 || totals.cohortGrades[slot] > 0 )
+            {
+                Cohort cohort = cohort( slot );
+                cohorts.put( Totals.FIRST_YEAR + slot, cohort );
+                overall.add( cohort );
+            }
+        }
+        unknownCohort = cohort( Totals.UNKNOWN_YEAR_SLOT );
+        overall.add( unknownCohort );
+    }
+
+    private Cohort cohort( int slot )
+    {
+        Cohort cohort = new Cohort();
+        cohort.students = totals.cohortStudents[slot];
+        cohort.enrolledCredits = totals.cohortEnrolledCredits[slot];
+        cohort.passedCredits = totals.cohortPassedCredits[slot];
+        cohort.add( totals.cohortGrades[slot], totals.cohortSum[slot], totals.cohortPassed[slot] );
+        return cohort;
+    }
+
+    public double getCourseAverage( String courseCode )
+    {
+        int courseId = CourseCodes.idOf( courseCode );
+        return courseId >= 0 && courseId < totals.courseGrades.length && totals.courseGrades[courseId] > 0
+            ? totals.courseSum[courseId] / totals.courseGrades[courseId] : -1;
+    }
+
+    // Share of the course's grades that are passing, between 0 and 1
+    public double getCoursePassRate( String courseCode )
+    {
+        int courseId = CourseCodes.idOf( courseCode );
+        return courseId >= 0 && courseId < totals.courseGrades.length && totals.courseGrades[courseId] > 0
+            ? (double) totals.coursePassed[courseId] / totals.courseGrades[courseId] : -1;
+    }
+
+    // Grade statistics of every module with graded courses, keyed by module code
+    public Map<String, Stats> getModules()
+    {
+        return Collections.unmodifiableMap( modules );
+    }
+
+    // Students grouped by birth year; students without a known year are in getUnknownCohort()
+    public SortedMap<Integer, Cohort> getCohorts()
+    {
+        return Collections.unmodifiableSortedMap( cohorts );
+    }
+
+    public Cohort getUnknownCohort()
+    {
+        return unknownCohort;
+    }
+
+    // All students together
+    public Cohort getOverall()
+    {
+        return overall;
+    }
+
+    public static class Stats
+    {
+        long grades;
+
+        double sum;
+
+        long passed;
+
+        void add( long grades, double sum, long passed )
+        {
+            this.grades += grades;
+            this.sum += sum;
+            this.passed += passed;
+        }
+
+        public long getGradeCount()
+        {
+            return grades;
+        }
+
+        public double getAverage()
+        {
+            return grades > 0 ? sum / grades : -1;
+        }
+
+        // Share of passing grades, between 0 and 1
+        public double getPassRate()
+        {
+            return grades > 0 ? (double) passed / grades : -1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "grades=" + grades + ", average=" + String.format( "%.2f", getAverage() ) + ", passRate="
+                + String.format( "%.3f", getPassRate() );
+        }
+    }
+
+    public static class Cohort
+        extends Stats
+    {
+        long students;
+
+        long enrolledCredits;
+
+        long passedCredits;
+
+        void add( Cohort other )
+        {
+            add( other.grades, other.sum, other.passed );
+            students += other.students;
+            enrolledCredits += other.enrolledCredits;
+            passedCredits += other.passedCredits;
+        }
+
+        public long getStudentCount()
+        {
+            return students;
+        }
+
+        public long getEnrolledCredits()
+        {
+            return enrolledCredits;
+        }
+
+        public long getPassedCredits()
+        {
+            return passedCredits;
+        }
+
+        // Passed credits over enrolled credits, between 0 and 1
+        public double getCreditCompletion()
+        {
+            return enrolledCredits > 0 ? (double) passedCredits / enrolledCredits : -1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "students=" + students + ", " + super.toString() + ", creditCompletion="
+                + String.format( "%.3f", getCreditCompletion() );
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.generation.analytics;
+
+import com.generation.model.CourseCodes;
+import com.generation.model.GradeTable;
+import com.generation.model.Student;
+import com.generation.model.StudentIds;
+import com.generation.service.StudentService;
+import com.generation.utils.DateParser;
+
+import java.util.Arrays;
+
+// Columnar copy of the grade data: one row per (student, course) grade in parallel primitive
+// arrays, plus one row per student. Aggregations scan these arrays instead of chasing Student
+// objects, which keeps them cache friendly and easy to split across fork-join tasks. The grade rows
+// are bulk copies of the service's GradeTable, one course partition at a time; the student rows are
+// indexed by StudentIds handle, which is also what the grade rows refer to.
+public class GradeSnapshot
+{
+    private static final int UNKNOWN_YEAR = 0;
+
+    // Grade rows
+    private int gradeCount;
+
+    private int[] gradeStudent;
+
+    private int[] gradeCourse;
+
+    private double[] grades;
+
+    // Student rows; a handle without a student in the service has a row that is not present
+    private int studentCount;
+
+    private boolean[] present;
+
+    private int[] birthYears;
+
+    private int[] enrolledCredits;
+
+    private int[] passedCredits;
+
+    private GradeSnapshot( int gradeCapacity )
+    {
+        gradeStudent = new int[gradeCapacity];
+        gradeCourse = new int[gradeCapacity];
+        grades = new double[gradeCapacity];
+    }
+
+    // Copies the grades of every student currently in the service
+    public static GradeSnapshot of( StudentService studentService )
+    {
+        GradeTable table = studentService.getGradeTable();
+        int courses = CourseCodes.size();
+        int rows = 0;
+        for ( int courseId = 0; courseId < courses; courseId++ )
+        {
+            rows += table.getGradeCount( courseId );
+        }
+        // sized for the current grades plus some headroom; copyGrades still grows if more arrive
+        GradeSnapshot snapshot = new GradeSnapshot( rows + rows / 16 + 16 );
+        for ( int courseId = 0; courseId < courses; courseId++ )
+        {
+            snapshot.copyGrades( table, courseId );
+        }
+        // handles are interned before their grade rows exist, so every grade row has a student row
+        snapshot.allocateStudents( StudentIds.size() );
+        // each student writes only its own row, so the rows are filled in parallel
+        snapshot.studentCount = studentService.getStudents().values().parallelStream()
+            .mapToInt( snapshot::addStudent ).sum();
+        return snapshot;
+    }
+
+    private void copyGrades( GradeTable table, int courseId )
+    {
+        int copied;
+        while ( ( copied = table.copyRows( courseId, gradeStudent, grades, gradeCount ) ) < 0 )
+        {
+            int capacity = Math.max( gradeCount * 2, gradeCount + table.getGradeCount( courseId ) );
+            gradeStudent = Arrays.copyOf( gradeStudent, capacity );
+            gradeCourse = Arrays.copyOf( gradeCourse, capacity );
+            grades = Arrays.copyOf( grades, capacity );
+        }
+        Arrays.fill( gradeCourse, gradeCount, gradeCount + copied, courseId );
+        gradeCount += copied;
+    }
+
+    private void allocateStudents( int rows )
+    {
+        present = new boolean[rows];
+        birthYears = new int[rows];
+        enrolledCredits = new int[rows];
+        passedCredits = new int[rows];
+    }
+
+    // Returns 1 if the student got a row, 0 if it was subscribed after the rows were allocated
+    private int addStudent( Student student )
+    {
+        int row = student.getHandle();
+        if ( row >= present.length )
+        {
+            return 0;
+        }
+        birthYears[row] = student.hasBirthDate() ? DateParser.yearOf( student.getBirthEpochDay() ) : UNKNOWN_YEAR;
+        // one lock acquisition per student so its two credit sums are consistent with each other
+        synchronized ( student )
+        {
+            enrolledCredits[row] = student.getEnrolledCredits();
+            passedCredits[row] = student.getPassedCredits();
+        }
+        present[row] = true;
+        return 1;
+    }
+
+    public int getGradeCount()
+    {
+        return gradeCount;
+    }
+
+    public int getStudentCount()
+    {
+        return studentCount;
+    }
+
+    // Number of student rows, present or not
+    int getStudentRows()
+    {
+        return present.length;
+    }
+
+    // Student row of the grade row
+    int studentOf( int row )
+    {
+        return gradeStudent[row];
+    }
+
+    // Interned course id of the grade row, see CourseCodes
+    int courseOf( int row )
+    {
+        return gradeCourse[row];
+    }
+
+    double gradeOf( int row )
+    {
+        return grades[row];
+    }
+
+    boolean isPresent( int student )
+    {
+        return present[student];
+    }
+
+    // Birth year of the student row, 0 if unknown
+    int birthYearOf( int student )
+    {
+        return birthYears[student];
+    }
+
+    int enrolledCreditsOf( int student )
+    {
+        return enrolledCredits[student];
+    }
+
+    int passedCreditsOf( int student )
+    {
+        return passedCredits[student];
+    }
+}
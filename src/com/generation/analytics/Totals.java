@@ -0,0 +1,89 @@
+package com.generation.analytics;
+
+// Additive counters produced by one fold over a range of snapshot rows. Birth years are kept in
+// fixed slots from FIRST_YEAR on; unknown or out of range years share the last slot.
+final class Totals
+{
+    static final double PASS_GRADE = 50.0;
+
+    static final int FIRST_YEAR = 1900;
+
+    static final int YEARS = 201;
+
+    static final int UNKNOWN_YEAR_SLOT = YEARS;
+
+    // Per interned course id
+    final long[] courseGrades;
+
+    final double[] courseSum;
+
+    final long[] coursePassed;
+
+    // Per birth year slot
+    final long[] cohortStudents = new long[YEARS + 1];
+
+    final long[] cohortGrades = new long[YEARS + 1];
+
+    final double[] cohortSum = new double[YEARS + 1];
+
+    final long[] cohortPassed = new long[YEARS + 1];
+
+    final long[] cohortEnrolledCredits = new long[YEARS + 1];
+
+    final long[] cohortPassedCredits = new long[YEARS + 1];
+
+    Totals( int courseSlots )
+    {
+        courseGrades = new long[courseSlots];
+        courseSum = new double[courseSlots];
+        coursePassed = new long[courseSlots];
+    }
+
+    static int yearSlot( int birthYear )
+    {
+        int slot = birthYear - FIRST_YEAR;
+        return slot >= 0 && slot < YEARS ? slot : UNKNOWN_YEAR_SLOT;
+    }
+
+    void addGrade( int courseId, int birthYear, double grade )
+    {
+        int passed = grade >= PASS_GRADE ? 1 : 0;
+        if ( courseId < courseGrades.length )
+        {
+            courseGrades[courseId]++;
+            courseSum[courseId] += grade;
+            coursePassed[courseId] += passed;
+        }
+        int slot = yearSlot( birthYear );
+        cohortGrades[slot]++;
+        cohortSum[slot] += grade;
+        cohortPassed[slot] += passed;
+    }
+
+    void addStudent( int birthYear, int enrolledCredits, int passedCredits )
+    {
+        int slot = yearSlot( birthYear );
+        cohortStudents[slot]++;
+        cohortEnrolledCredits[slot] += enrolledCredits;
+        cohortPassedCredits[slot] += passedCredits;
+    }
+
+    void add( Totals other )
+    {
+        for ( int i = 0; i < courseGrades.length; i++ )
+        {
+            courseGrades[i] += other.courseGrades[i];
+            courseSum[i] += other.courseSum[i];
+            coursePassed[i] += other.coursePassed[i];
+        }
+        for ( int i = 0; i <= YEARS; i++ )
+        {
+            cohortStudents[i] += other.cohortStudents[i];
+            cohortGrades[i] += other.cohortGrades[i];
+            cohortSum[i] += other.cohortSum[i];
+            cohortPassed[i] += other.cohortPassed[i];
+            cohortEnrolledCredits[i] += other.cohortEnrolledCredits[i];
+            cohortPassedCredits[i] += other.cohortPassedCredits[i];
+        }
+    }
+}
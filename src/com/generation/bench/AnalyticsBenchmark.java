@@ -0,0 +1,76 @@
+package com.generation.bench;
+
+import com.generation.analytics.AnalyticsEngine;
+import com.generation.analytics.AnalyticsReport;
+import com.generation.analytics.GradeSnapshot;
+import com.generation.generator.PopulationGenerator;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Sequential against fork-join analytics over the same columnar snapshot of a generated population.
+// Usage: java -jar target/benchmarks.jar AnalyticsBenchmark [-p population=100000]
+// Populations of 10M students need a heap of several GB (-jvmArgsAppend -Xmx12g).
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 2, jvmArgsAppend = "-Xmx6g" )
+public class AnalyticsBenchmark
+{
+    @Param( { "1000000" } )
+    private int population;
+
+    private StudentService studentService;
+
+    private CourseService courseService;
+
+    private GradeSnapshot snapshot;
+
+    private final AnalyticsEngine sequential = AnalyticsEngine.sequential();
+
+    private final AnalyticsEngine parallel = AnalyticsEngine.parallel();
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        studentService = new StudentService( enrollments );
+        courseService = new CourseService( enrollments );
+        new PopulationGenerator( 42, population ).generate( studentService, courseService );
+        snapshot = GradeSnapshot.of( studentService );
+    }
+
+    @Benchmark
+    public GradeSnapshot gradeSnapshotOf()
+    {
+        return GradeSnapshot.of( studentService );
+    }
+
+    @Benchmark
+    public AnalyticsReport analyzeSequential()
+    {
+        return sequential.analyze( snapshot, courseService );
+    }
+
+    @Benchmark
+    public AnalyticsReport analyzeForkJoin()
+    {
+        return parallel.analyze( snapshot, courseService );
+    }
+}
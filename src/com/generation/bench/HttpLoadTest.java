@@ -0,0 +1,313 @@
+package com.generation.bench;
+
+import com.generation.http.ApiServer;
+import com.generation.model.Course;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Closed-loop load test of the HTTP API over keep-alive connections.
+// Usage: java -cp target/benchmarks.jar com.generation.bench.HttpLoadTest [population] [connections] [seconds] [pipelineDepth] [host:port]
+// (default 100000 16 10 1). Without host:port the server runs in this JVM over a synthetic population;
+// a remote server must hold students S0..S<population-1>, and grading requests against it use
+// INTRO-CS-1, which answers 409 for students not enrolled in it.
+// Each connection writes pipelineDepth requests back to back and then reads their responses. The
+// request mix is 80% find student, 10% course average and 10% grading a student in an enrolled course.
+// Reports requests per second and p50/p99/max latency, where latency runs from writing a request to
+// reading the end of its response.
+public class HttpLoadTest
+{
+    private static final int WARMUP_SECONDS = 3;
+
+    private static final int PREPARED_REQUESTS = 4096;
+
+    public static void main( String[] args )
+        throws Exception
+    {
+        int population = args.length > 0 ? Integer.parseInt( args[0] ) : 100_000;
+        int connections = args.length > 1 ? Integer.parseInt( args[1] ) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt( args[2] ) : 10;
+        int pipelineDepth = args.length > 3 ? Integer.parseInt( args[3] ) : 1;
+
+        ApiServer server = null;
+        InetSocketAddress address;
+        byte[][] requests;
+        if ( args.length > 4 )
+        {
+            String[] hostPort = args[4].split( ":" );
+            address = new InetSocketAddress( hostPort[0], Integer.parseInt( hostPort[1] ) );
+            requests = prepareRequests( address, population, null );
+        }
+        else
+        {
+            EnrollmentIndex enrollments = new EnrollmentIndex();
+            StudentService studentService = new StudentService( enrollments );
+            CourseService courseService = new CourseService( enrollments );
+            Course[] courses = new Course[ServiceBenchmark.COURSE_CODES.length];
+            for ( int i = 0; i < courses.length; i++ )
+            {
+                courses[i] = courseService.getCourse( ServiceBenchmark.COURSE_CODES[i] );
+            }
+            ServiceBenchmark.populate( studentService, courseService, courses, population );
+            server = ApiServer.start( 0, studentService, courseService );
+            address = new InetSocketAddress( "localhost", server.getPort() );
+            // grading needs a course the student is enrolled in
+            requests = prepareRequests( address, population, studentService );
+        }
+        System.out.printf( "%d students, %d connections, pipeline depth %d, %s%n", population, connections,
+                           pipelineDepth, address );
+        try
+        {
+            run( address, requests, connections, WARMUP_SECONDS, pipelineDepth, "warmup" );
+            run( address, requests, connections, seconds, pipelineDepth, "measured" );
+        }
+        finally
+        {
+            if ( server != null )
+            {
+                server.close();
+            }
+        }
+    }
+
+    private static byte[][] prepareRequests( InetSocketAddress address, int population, StudentService studentService )
+    {
+        Random random = new Random( 42 );
+        String host = "Host: " + address.getHostString() + ":" + address.getPort() + "\r\n";
+        byte[][] prepared = new byte[PREPARED_REQUESTS][];
+        for ( int i = 0; i < prepared.length; i++ )
+        {
+            String id = "S" + random.nextInt( population );
+            int kind = random.nextInt( 10 );
+            String request;
+            if ( kind == 0 )
+            {
+                String code = ServiceBenchmark.COURSE_CODES[random.nextInt( ServiceBenchmark.COURSE_CODES.length )];
+                request = "GET /courses/" + code + "/average HTTP/1.1\r\n" + host + "\r\n";
+            }
+            else if ( kind == 1 )
+            {
+                String code = ServiceBenchmark.COURSE_CODES[0];
+                if ( studentService != null )
+                {
+                    Student student = studentService.findStudent( id );
+                    code = student.getApprovedCourses().get( 0 ).getCode();
+                }
+                String body = "studentId=" + id + "&courseCode=" + code;
+                request = "POST /grades HTTP/1.1\r\n" + host
+                    + "Content-Type: application/x-www-form-urlencoded\r\nContent-Length: " + body.length() + "\r\n\r\n"
+                    + body;
+            }
+            else
+            {
+                request = "GET /students/" + id + " HTTP/1.1\r\n" + host + "\r\n";
+            }
+            prepared[i] = request.getBytes( StandardCharsets.US_ASCII );
+        }
+        return prepared;
+    }
+
+    private static void run( InetSocketAddress address, byte[][] requests, int connections, int seconds,
+                             int pipelineDepth, String label )
+        throws InterruptedException
+    {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Client[] clients = new Client[connections];
+        Thread[] threads = new Thread[connections];
+        long start = System.nanoTime();
+        for ( int i = 0; i < connections; i++ )
+        {
+            clients[i] = new Client( address, requests, i, pipelineDepth, deadline );
+            threads[i] = new Thread( clients[i], "load-" + i );
+            threads[i].start();
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        double elapsed = ( System.nanoTime() - start ) / 1e9;
+
+        long total = 0;
+        long failures = 0;
+        long errors = 0;
+        for ( Client client : clients )
+        {
+            total += client.count;
+            failures += client.failures;
+            errors += client.error != null ? 1 : 0;
+        }
+        long[] latencies = new long[(int) total];
+        int offset = 0;
+        for ( Client client : clients )
+        {
+            System.arraycopy( client.latencies, 0, latencies, offset, client.count );
+            offset += client.count;
+        }
+        Arrays.sort( latencies );
+        System.out.printf( "%-9s %10d requests %10.0f req/s   p50 %8.3f ms   p99 %8.3f ms   max %8.3f ms"
+                               + "   non-2xx %d   broken connections %d%n", label, total, total / elapsed,
+                           percentile( latencies, 0.50 ), percentile( latencies, 0.99 ),
+                           latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0, failures, errors );
+        for ( Client client : clients )
+        {
+            if ( client.error != null )
+            {
+                System.out.println( "  " + client.error );
+                break;
+            }
+        }
+    }
+
+    private static double percentile( long[] sorted, double fraction )
+    {
+        if ( sorted.length == 0 )
+        {
+            return 0;
+        }
+        int index = (int) Math.ceil( fraction * sorted.length ) - 1;
+        return sorted[Math.max( 0, index )] / 1e6;
+    }
+
+    // One keep-alive connection driven by one thread
+    private static final class Client
+        implements Runnable
+    {
+        private final InetSocketAddress address;
+
+        private final byte[][] requests;
+
+        private final int pipelineDepth;
+
+        private final long deadline;
+
+        private int next;
+
+        long[] latencies = new long[1 << 16];
+
+        int count;
+
+        long failures;
+
+        Exception error;
+
+        Client( InetSocketAddress address, byte[][] requests, int index, int pipelineDepth, long deadline )
+        {
+            this.address = address;
+            this.requests = requests;
+            this.pipelineDepth = pipelineDepth;
+            this.deadline = deadline;
+            // connections start at different points of the request list
+            this.next = index * 997 % PREPARED_REQUESTS;
+        }
+
+        @Override
+        public void run()
+        {
+            try ( Socket socket = new Socket() )
+            {
+                socket.setTcpNoDelay( true );
+                socket.connect( address );
+                OutputStream out = socket.getOutputStream();
+                InputStream in = new BufferedInputStream( socket.getInputStream(), 1 << 16 );
+                long[] sent = new long[pipelineDepth];
+                while ( System.nanoTime() < deadline )
+                {
+                    for ( int i = 0; i < pipelineDepth; i++ )
+                    {
+                        sent[i] = System.nanoTime();
+                        out.write( requests[next] );
+                        next = ( next + 1 ) % PREPARED_REQUESTS;
+                    }
+                    out.flush();
+                    for ( int i = 0; i < pipelineDepth; i++ )
+                    {
+                        int status = readResponse( in );
+                        record( System.nanoTime() - sent[i] );
+                        if ( status < 200 || status >= 300 )
+                        {
+                            failures++;
+                        }
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                error = e;
+            }
+        }
+
+        private void record( long latency )
+        {
+            if ( count == latencies.length )
+            {
+                latencies = Arrays.copyOf( latencies, count * 2 );
+            }
+            latencies[count++] = latency;
+        }
+
+        // Reads one response with a Content-Length body and returns its status code
+        private static int readResponse( InputStream in )
+            throws IOException
+        {
+            List<String> headers = new ArrayList<>();
+            StringBuilder line = new StringBuilder();
+            while ( true )
+            {
+                int c = in.read();
+                if ( c < 0 )
+                {
+                    throw new IOException( "Connection closed by the server" );
+                }
+                if ( c == '\n' )
+                {
+                    if ( line.length() == 0 )
+                    {
+                        break;
+                    }
+                    headers.add( line.toString() );
+                    line.setLength( 0 );
+                }
+                else if ( c != '\r' )
+                {
+                    line.append( (char) c );
+                }
+            }
+            int status = Integer.parseInt( headers.get( 0 ).substring( 9, 12 ) );
+            long length = 0;
+            for ( String header : headers )
+            {
+                if ( header.regionMatches( true, 0, "Content-Length:", 0, 15 ) )
+                {
+                    length = Long.parseLong( header.substring( 15 ).trim() );
+                }
+            }
+            while ( length > 0 )
+            {
+                long skipped = in.skip( length );
+                if ( skipped <= 0 )
+                {
+                    if ( in.read() < 0 )
+                    {
+                        throw new IOException( "Connection closed inside a response body" );
+                    }
+                    skipped = 1;
+                }
+                length -= skipped;
+            }
+            return status;
+        }
+    }
+}
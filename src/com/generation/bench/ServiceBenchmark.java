@@ -0,0 +1,339 @@
+package com.generation.bench;
+
+import com.generation.metrics.Metrics;
+import com.generation.metrics.Timer;
+import com.generation.model.Course;
+import com.generation.model.CourseCodes;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import com.generation.utils.DateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH benchmarks of the StudentService and CourseService hot paths over synthetic populations.
+// Every benchmark runs in its own forks on a freshly populated service, so the ones that write
+// (enrolling, subscribing, grading) do not skew the others.
+// Usage: java -jar target/benchmarks.jar ServiceBenchmark [-p population=1000,100000]
+// Populations of 10M students need a heap of several GB (-jvmArgsAppend -Xmx8g).
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 2, jvmArgsAppend = "-Xmx4g" )
+public class ServiceBenchmark
+{
+    static final String[] COURSE_CODES =
+        { "INTRO-CS-1", "INTRO-CS-2", "INTRO-CS-3", "INTRO-CS-4", "INTRO-CS-5", "INTRO-CS-6", "INTRO-CS-7",
+            "INTRO-WEB-1", "INTRO-WEB-2", "INTRO-WEB-3", "INTRO-WEB-4", "INTRO-WEB-5", "INTRO-WEB-6",
+            "INTRO-WEB-7" };
+
+    private static final String[] DATES = { "01/01/2000", "29/02/2000", "31/12/1999", "7/6/1987" };
+
+    private static final int COURSES_PER_STUDENT = 3;
+
+    // Random student picks, cycled through by the lookups; a power of two
+    private static final int PICKS = 1 << 16;
+
+    @Param( { "1000", "100000", "1000000" } )
+    private int population;
+
+    private StudentService studentService;
+
+    private CourseService courseService;
+
+    private Course[] courses;
+
+    private String[] ids;
+
+    private List<String> allIds;
+
+    private int[] picks;
+
+    private int next;
+
+    private int subscribed;
+
+    private int courseId;
+
+    private Timer timer;
+
+    private PrintStream console;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        studentService = new StudentService( enrollments );
+        courseService = new CourseService( enrollments );
+        courses = new Course[COURSE_CODES.length];
+        for ( int i = 0; i < courses.length; i++ )
+        {
+            courses[i] = courseService.getCourse( COURSE_CODES[i] );
+        }
+        ids = populate( studentService, courseService, courses, population );
+        allIds = Arrays.asList( ids );
+        Random random = new Random( 42 );
+        picks = new int[PICKS];
+        for ( int i = 0; i < picks.length; i++ )
+        {
+            picks[i] = random.nextInt( population );
+        }
+        courseId = CourseCodes.idOf( COURSE_CODES[0] );
+        timer = Metrics.timer( "ServiceBenchmark.empty" );
+        // the renderers and gradeStudent print to the console
+        console = System.out;
+        System.setOut( new PrintStream( OutputStream.nullOutputStream() ) );
+    }
+
+    @TearDown( Level.Trial )
+    public void restoreConsole()
+    {
+        System.setOut( console );
+    }
+
+    private int pick()
+    {
+        return picks[next++ & ( PICKS - 1 )];
+    }
+
+    private String pickId()
+    {
+        return ids[pick()];
+    }
+
+    private String nextCourseCode()
+    {
+        return COURSE_CODES[( next++ & Integer.MAX_VALUE ) % COURSE_CODES.length];
+    }
+
+    @Benchmark
+    public Student findStudent()
+    {
+        return studentService.findStudent( pickId() );
+    }
+
+    @Benchmark
+    public Student findStudentByEmail()
+    {
+        return studentService.findStudentByEmail( "student" + pick() + "@example.com" );
+    }
+
+    @Benchmark
+    public List<Student> findStudentsByNamePrefix()
+    {
+        return studentService.findStudentsByNamePrefix( "student " + pick() % 1000, 20 );
+    }
+
+    @Benchmark
+    public List<Student> findStudentsBornBetween()
+    {
+        int from = pick() % 20_000;
+        return studentService.findStudentsBornBetween( from, from + 30, 20 );
+    }
+
+    @Benchmark
+    public int parseEpochDay()
+    {
+        return DateParser.parseEpochDay( DATES[next++ & 3] );
+    }
+
+    @Benchmark
+    public List<Student> getTopStudents()
+    {
+        return studentService.getTopStudents( 100 );
+    }
+
+    @Benchmark
+    public int averageRankOf()
+    {
+        return studentService.getAverageRanking().rankOf( pickId() );
+    }
+
+    @Benchmark
+    public double coursePercentileOf()
+    {
+        return studentService.getCourseRanking( COURSE_CODES[0] ).percentileOf( pickId() );
+    }
+
+    @Benchmark
+    public double getCourseAverageGrade()
+    {
+        return studentService.getCourseAverageGrade( nextCourseCode() );
+    }
+
+    @Benchmark
+    public boolean isAttendingCourse()
+    {
+        return studentService.findStudent( pickId() ).isAttendingCourse( nextCourseCode() );
+    }
+
+    @Benchmark
+    public Student enrollToCourseAlreadyEnrolled()
+    {
+        Student student = studentService.findStudent( pickId() );
+        student.enrollToCourse( student.getApprovedCourses().get( 0 ) );
+        return student;
+    }
+
+    @Benchmark
+    public Student enrollStudent()
+    {
+        Student student = studentService.findStudent( pickId() );
+        courseService.enrollStudent( nextCourseCode(), student );
+        return student;
+    }
+
+    @Benchmark
+    public Student subscribeStudent()
+    {
+        int i = subscribed++;
+        Student student = new Student( "NEW-" + i, "New Student", "new" + i + "@example.com", DateParser.today() );
+        studentService.subscribeStudent( student );
+        return student;
+    }
+
+    @Benchmark
+    public void gradeStudent()
+    {
+        Student student = studentService.findStudent( pickId() );
+        studentService.gradeStudent( student.getId(), student.getApprovedCourses().get( 0 ) );
+    }
+
+    @Benchmark
+    @OutputTimeUnit( TimeUnit.MILLISECONDS )
+    public long gradeStudentsAllIds()
+    {
+        return studentService.gradeStudents( courses[0], allIds ).getGraded();
+    }
+
+    @Benchmark
+    @OutputTimeUnit( TimeUnit.MICROSECONDS )
+    public void studentSummary()
+    {
+        studentService.showSummary();
+    }
+
+    @Benchmark
+    @OutputTimeUnit( TimeUnit.MICROSECONDS )
+    public void courseSummary()
+    {
+        courseService.showSummary();
+    }
+
+    // Pass rate of one course from the columnar table against walking every Student object
+    @Benchmark
+    @OutputTimeUnit( TimeUnit.MICROSECONDS )
+    public double gradeTablePassRate()
+    {
+        return studentService.getGradeTable().getPassRate( courseId, 50 );
+    }
+
+    @Benchmark
+    @OutputTimeUnit( TimeUnit.MICROSECONDS )
+    public double studentObjectsPassRate()
+    {
+        long graded = 0;
+        long passed = 0;
+        for ( Student student : studentService.getStudents().values() )
+        {
+            double grade = student.getGrade( COURSE_CODES[0] );
+            if ( !Double.isNaN( grade ) )
+            {
+                graded++;
+                passed += grade >= 50 ? 1 : 0;
+            }
+        }
+        return graded > 0 ? (double) passed / graded : 0;
+    }
+
+    @Benchmark
+    public long timerStartStop()
+    {
+        long start = timer.start();
+        timer.stop( start );
+        return start;
+    }
+
+    @Benchmark
+    public long nanoTime()
+    {
+        return System.nanoTime();
+    }
+
+    // findStudent and the bare timer pair with metrics switched off
+    @State( Scope.Benchmark )
+    public static class MetricsOff
+    {
+        private boolean enabled;
+
+        @Setup( Level.Trial )
+        public void disable()
+        {
+            enabled = Metrics.isEnabled();
+            Metrics.setEnabled( false );
+        }
+
+        @TearDown( Level.Trial )
+        public void restore()
+        {
+            Metrics.setEnabled( enabled );
+        }
+    }
+
+    @Benchmark
+    public Student findStudentMetricsOff( MetricsOff metricsOff )
+    {
+        return studentService.findStudent( pickId() );
+    }
+
+    @Benchmark
+    public long timerStartStopMetricsOff( MetricsOff metricsOff )
+    {
+        long start = timer.start();
+        timer.stop( start );
+        return start;
+    }
+
+    static String[] populate( StudentService studentService, CourseService courseService, Course[] courses,
+                              int population )
+    {
+        Random random = new Random( population );
+        String[] ids = new String[population];
+        for ( int i = 0; i < population; i++ )
+        {
+            String id = "S" + i;
+            ids[i] = id;
+            int birthDate = random.nextInt( 20_000 );
+            Student student = new Student( id, "Student " + i, "student" + i + "@example.com", birthDate );
+            studentService.subscribeStudent( student );
+            for ( int c = 0; c < COURSES_PER_STUDENT; c++ )
+            {
+                Course course = courses[random.nextInt( courses.length )];
+                courseService.enrollStudent( course.getCode(), student );
+                student.gradeInCourse( course.getCode(), 40 + random.nextDouble() * 60 );
+            }
+        }
+        return ids;
+    }
+}
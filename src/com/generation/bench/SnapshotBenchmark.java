@@ -0,0 +1,143 @@
+package com.generation.bench;
+
+import com.generation.model.Course;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import com.generation.storage.MappedSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Compares startup from a mapped binary snapshot against rebuilding the same state from scratch.
+// Each step is timed as a single shot on a fresh service, since startup only ever happens once.
+// Usage: java -jar target/benchmarks.jar SnapshotBenchmark [-p population=100000]
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2 )
+@Measurement( iterations = 5 )
+@Fork( value = 2, jvmArgsAppend = "-Xmx4g" )
+public class SnapshotBenchmark
+{
+    @Param( { "1000000" } )
+    private int population;
+
+    private StudentService studentService;
+
+    private CourseService courseService;
+
+    private String[] ids;
+
+    private Path file;
+
+    @Setup( Level.Trial )
+    public void setUp()
+        throws IOException
+    {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        studentService = new StudentService( enrollments );
+        courseService = new CourseService( enrollments );
+        ids = ServiceBenchmark.populate( studentService, courseService, courses( courseService ), population );
+        file = Files.createTempFile( "studentgen", ".snapshot" );
+        MappedSnapshot.write( file, 0, studentService, courseService );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+        throws IOException
+    {
+        Files.deleteIfExists( file );
+    }
+
+    @Benchmark
+    public StudentService rebuildFromScratch()
+    {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        StudentService students = new StudentService( enrollments );
+        CourseService catalog = new CourseService( enrollments );
+        ServiceBenchmark.populate( students, catalog, courses( catalog ), population );
+        return students;
+    }
+
+    @Benchmark
+    public long writeSnapshot()
+        throws IOException
+    {
+        Path target = Files.createTempFile( "studentgen", ".snapshot" );
+        try
+        {
+            MappedSnapshot.write( target, 0, studentService, courseService );
+            return Files.size( target );
+        }
+        finally
+        {
+            Files.deleteIfExists( target );
+        }
+    }
+
+    @Benchmark
+    public Object openSnapshotAndFirstLookup()
+        throws IOException
+    {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        StudentService students = new StudentService( enrollments );
+        CourseService catalog = new CourseService( enrollments );
+        MappedSnapshot.open( file ).attach( students, catalog );
+        return students.findStudent( ids[population / 2] );
+    }
+
+    // A snapshot opened and attached before each materialize shot, outside the timing
+    @State( Scope.Benchmark )
+    public static class Attached
+    {
+        private StudentService students;
+
+        private CourseService courses;
+
+        private MappedSnapshot snapshot;
+
+        @Setup( Level.Invocation )
+        public void open( SnapshotBenchmark benchmark )
+            throws IOException
+        {
+            EnrollmentIndex enrollments = new EnrollmentIndex();
+            students = new StudentService( enrollments );
+            courses = new CourseService( enrollments );
+            snapshot = MappedSnapshot.open( benchmark.file );
+            snapshot.attach( students, courses );
+        }
+    }
+
+    @Benchmark
+    public StudentService materializeAllStudents( Attached attached )
+    {
+        attached.snapshot.materialize( attached.students, attached.courses );
+        return attached.students;
+    }
+
+    private static Course[] courses( CourseService courseService )
+    {
+        Course[] courses = new Course[ServiceBenchmark.COURSE_CODES.length];
+        for ( int i = 0; i < courses.length; i++ )
+        {
+            courses[i] = courseService.getCourse( ServiceBenchmark.COURSE_CODES[i] );
+        }
+        return courses;
+    }
+}
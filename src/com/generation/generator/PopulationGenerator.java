@@ -0,0 +1,645 @@
+package com.generation.generator;
+
+import com.generation.importer.CsvImporter;
+import com.generation.importer.ImportReport;
+import com.generation.model.Course;
+import com.generation.model.Module;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.StudentService;
+import com.generation.utils.DateParser;
+import com.generation.utils.SummaryRenderer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Deterministic synthetic population: a catalog of modules arranged in levels, where every module
+// above the first level requires one to three modules of lower levels, and students who work
+// their way up towards one module, enrolling in every course of each required module once its
+// own prerequisites are completed; failing a course closes the modules that need it. Grades come from a per-student ability, a per-course difficulty and per-grade noise,
+// so averages, pass rates and dropouts look realistic.
+//
+// Everything about student i depends only on the seed and i, so the output is the same for any
+// number of threads. Students are generated in chunks on a worker pool; generate() inserts them
+// straight into the services, writeCsv() streams them to files in the CsvImporter formats with
+// only a few chunks in memory at a time. CSV enrollments and grades are split per level
+// (enrollments-<level>.csv, grades-<level>.csv) so that importing them level by level, as
+// importCsv() does, always finds the prerequisite grades already loaded.
+//
+// Usage: java com.generation.generator.PopulationGenerator <students> [seed] [directory]
+public class PopulationGenerator
+{
+    public static final int DEFAULT_MODULES = 24;
+
+    public static final int DEFAULT_COURSES_PER_MODULE = 4;
+
+    public static final int DEFAULT_LEVELS = 4;
+
+    public static final String STUDENTS_FILE = "students.csv";
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private static final double PASSING_GRADE = 50.0;
+
+    private static final int[] CREDITS = { 3, 6, 6, 9 };
+
+    private static final String[] FIRST_NAMES =
+        { "Ana", "Ben", "Carla", "David", "Elena", "Farid", "Grace", "Hugo", "Ines", "Jamal", "Kofi", "Lina",
+            "Marta", "Nadia", "Omar", "Paula", "Quentin", "Rosa", "Samir", "Tariq", "Uma", "Victor", "Wen",
+            "Ximena", "Yusuf", "Zara", "Aisha", "Bruno", "Chen", "Dana", "Emeka", "Fatima", "Goran", "Hana",
+            "Ivan", "Julia", "Karim", "Leila", "Mateo", "Noor" };
+
+    private static final String[] LAST_NAMES =
+        { "Smith", "Garcia", "Okafor", "Nguyen", "Haddad", "Kowalski", "Silva", "Muller", "Rossi", "Tanaka",
+            "Ibrahim", "Johansson", "Novak", "Petrov", "Fernandes", "Khan", "Lopez", "Mensah", "Cohen", "Dubois",
+            "Yilmaz", "Santos", "Kim", "Ahmed", "Brown", "Ivanova", "Moreau", "Costa", "Hassan", "Wilson" };
+
+    private final long seed;
+
+    private final long studentCount;
+
+    private final int levels;
+
+    private final Module[] modules;
+
+    private final int[] moduleLevels;
+
+    // Direct prerequisites of each module, as module indexes
+    private final int[][] prerequisites;
+
+    private final Course[][] courses;
+
+    // Added to the student's ability for every grade in the course
+    private final double[][] difficulties;
+
+    private final int[][] levelModules;
+
+    // Each module with all of its direct and transitive prerequisites, in ascending (so level) order
+    private final int[][] plans;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public PopulationGenerator( long seed, long studentCount )
+    {
+        this( seed, studentCount, DEFAULT_MODULES, DEFAULT_COURSES_PER_MODULE, DEFAULT_LEVELS );
+    }
+
+    public PopulationGenerator( long seed, long studentCount, int moduleCount, int coursesPerModule, int levels )
+    {
+        if ( levels < 1 || moduleCount < levels || coursesPerModule < 1 )
+        {
+            throw new IllegalArgumentException( "Need at least one module per level and one course per module" );
+        }
+        this.seed = seed;
+        this.studentCount = studentCount;
+        this.levels = levels;
+        modules = new Module[moduleCount];
+        moduleLevels = new int[moduleCount];
+        prerequisites = new int[moduleCount][];
+        courses = new Course[moduleCount][coursesPerModule];
+        difficulties = new double[moduleCount][coursesPerModule];
+        levelModules = new int[levels][];
+
+        Random random = new Random();
+        random.seed( seed, -1 );
+        int[] levelSizes = new int[levels];
+        for ( int m = 0; m < moduleCount; m++ )
+        {
+            moduleLevels[m] = (int) ( (long) m * levels / moduleCount );
+            levelSizes[moduleLevels[m]]++;
+        }
+        for ( int level = 0; level < levels; level++ )
+        {
+            levelModules[level] = new int[levelSizes[level]];
+            levelSizes[level] = 0;
+        }
+        for ( int m = 0; m < moduleCount; m++ )
+        {
+            int level = moduleLevels[m];
+            levelModules[level][levelSizes[level]++] = m;
+            String code = String.format( "GEN-M%02d", m );
+            modules[m] = new Module( code, "Generated Module " + m, "Level " + ( level + 1 ) + " synthetic module" );
+            prerequisites[m] = pickPrerequisites( random, level );
+            for ( int prerequisite : prerequisites[m] )
+            {
+                modules[m].addPrerequisite( modules[prerequisite] );
+            }
+            for ( int c = 0; c < coursesPerModule; c++ )
+            {
+                courses[m][c] = new Course( code + "-" + ( c + 1 ), "Generated Course " + m + "." + ( c + 1 ),
+                                            CREDITS[random.nextInt( CREDITS.length )], modules[m] );
+                difficulties[m][c] = 5 * random.nextGaussian();
+            }
+        }
+        plans = new int[moduleCount][];
+        for ( int m = 0; m < moduleCount; m++ )
+        {
+            boolean[] required = new boolean[moduleCount];
+            markRequired( m, required );
+            plans[m] = IntStream.range( 0, moduleCount ).filter( r -> required[r] ).toArray();
+        }
+    }
+
+    private void markRequired( int module, boolean[] required )
+    {
+        if ( !required[module] )
+        {
+            required[module] = true;
+            for ( int prerequisite : prerequisites[module] )
+            {
+                markRequired( prerequisite, required );
+            }
+        }
+    }
+
+    // One or two modules of the level below, sometimes one more from two levels below
+    private int[] pickPrerequisites( Random random, int level )
+    {
+        if ( level == 0 )
+        {
+            return new int[0];
+        }
+        int[] below = levelModules[level - 1];
+        int count = Math.min( below.length, 1 + random.nextInt( 2 ) );
+        boolean deeper = level >= 2 && random.nextDouble() < 0.3;
+        int[] picked = new int[count + ( deeper ? 1 : 0 )];
+        int[] candidates = below.clone();
+        for ( int i = 0; i < count; i++ )
+        {
+            int j = i + random.nextInt( candidates.length - i );
+            int swap = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = swap;
+            picked[i] = candidates[i];
+        }
+        if ( deeper )
+        {
+            int[] twoBelow = levelModules[level - 2];
+            picked[count] = twoBelow[random.nextInt( twoBelow.length )];
+        }
+        return picked;
+    }
+
+    public void setThreads( int threads )
+    {
+        this.threads = Math.max( 1, threads );
+    }
+
+    public long getStudentCount()
+    {
+        return studentCount;
+    }
+
+    public int getLevels()
+    {
+        return levels;
+    }
+
+    // Every generated course, module by module
+    public List<Course> getCourses()
+    {
+        List<Course> all = new ArrayList<>();
+        for ( Course[] moduleCourses : courses )
+        {
+            all.addAll( List.of( moduleCourses ) );
+        }
+        return all;
+    }
+
+    public void registerCatalog( CourseService courseService )
+    {
+        for ( Course course : getCourses() )
+        {
+            courseService.registerCourse( course );
+        }
+    }
+
+    // Registers the catalog, then subscribes, enrolls and grades every student on the worker pool
+    public void generate( StudentService studentService, CourseService courseService )
+    {
+        registerCatalog( courseService );
+        long chunks = ( studentCount + CHUNK_SIZE - 1 ) / CHUNK_SIZE;
+        AtomicLong nextChunk = new AtomicLong();
+        ExecutorService workers = newWorkers();
+        try
+        {
+            List<Future<?>> running = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                running.add( workers.submit( () -> {
+                    Worker worker = new Worker();
+                    ServiceRecords records = new ServiceRecords( studentService, courseService );
+                    for ( long chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement() )
+                    {
+                        generateChunk( chunk, worker, records );
+                    }
+                } ) );
+            }
+            for ( Future<?> future : running )
+            {
+                await( future );
+            }
+        }
+        finally
+        {
+            workers.shutdownNow();
+        }
+    }
+
+    // Writes students.csv plus enrollments-<level>.csv and grades-<level>.csv for every level
+    public void writeCsv( Path directory )
+        throws IOException
+    {
+        Files.createDirectories( directory );
+        List<Writer> files = new ArrayList<>();
+        ExecutorService workers = newWorkers();
+        try
+        {
+            Writer students = open( directory.resolve( STUDENTS_FILE ), "id,name,email,birthDate", files );
+            Writer[] enrollments = new Writer[levels];
+            Writer[] grades = new Writer[levels];
+            for ( int level = 0; level < levels; level++ )
+            {
+                enrollments[level] = open( enrollmentsFile( directory, level ), "studentId,courseCode", files );
+                grades[level] = open( gradesFile( directory, level ), "studentId,courseCode,grade", files );
+            }
+            // chunks are generated in parallel but written in order, at most two per thread in memory
+            ArrayDeque<Future<CsvRecords>> window = new ArrayDeque<>();
+            long chunks = ( studentCount + CHUNK_SIZE - 1 ) / CHUNK_SIZE;
+            for ( long chunk = 0; chunk < chunks || !window.isEmpty(); chunk++ )
+            {
+                if ( window.size() == threads * 2 || chunk >= chunks )
+                {
+                    await( window.poll() ).writeTo( students, enrollments, grades );
+                }
+                if ( chunk < chunks )
+                {
+                    long number = chunk;
+                    window.add( workers.submit( () -> {
+                        CsvRecords records = new CsvRecords( levels );
+                        generateChunk( number, new Worker(), records );
+                        return records;
+                    } ) );
+                }
+            }
+        }
+        finally
+        {
+            workers.shutdownNow();
+            for ( Writer file : files )
+            {
+                file.close();
+            }
+        }
+    }
+
+    // Registers the catalog and imports files written by writeCsv, level by level
+    public List<ImportReport> importCsv( Path directory, CsvImporter importer, CourseService courseService )
+        throws IOException
+    {
+        registerCatalog( courseService );
+        List<ImportReport> reports = new ArrayList<>();
+        reports.add( importer.importStudents( directory.resolve( STUDENTS_FILE ) ) );
+        for ( int level = 0; level < levels; level++ )
+        {
+            reports.add( importer.importEnrollments( enrollmentsFile( directory, level ) ) );
+            reports.add( importer.importGrades( gradesFile( directory, level ) ) );
+        }
+        return reports;
+    }
+
+    public static Path enrollmentsFile( Path directory, int level )
+    {
+        return directory.resolve( "enrollments-" + level + ".csv" );
+    }
+
+    public static Path gradesFile( Path directory, int level )
+    {
+        return directory.resolve( "grades-" + level + ".csv" );
+    }
+
+    private void generateChunk( long chunk, Worker worker, Records records )
+    {
+        long end = Math.min( studentCount, ( chunk + 1 ) * CHUNK_SIZE );
+        for ( long i = chunk * CHUNK_SIZE; i < end; i++ )
+        {
+            generateStudent( i, worker, records );
+        }
+    }
+
+    private void generateStudent( long index, Worker worker, Records records )
+    {
+        Random random = worker.random;
+        random.seed( seed, index );
+        String id = "G" + index;
+        String first = FIRST_NAMES[random.nextInt( FIRST_NAMES.length )];
+        String last = LAST_NAMES[random.nextInt( LAST_NAMES.length )];
+        // most students are born around 2000, a few are mature students
+        int year = (int) Math.round( 2000 + 4 * random.nextGaussian() - ( random.nextDouble() < 0.1 ? 15 : 0 ) );
+        year = Math.max( 1950, Math.min( 2008, year ) );
+        int month = 1 + random.nextInt( 12 );
+        int day = 1 + random.nextInt( 31 );
+        while ( !DateParser.isValidDate( day, month, year ) )
+        {
+            day--;
+        }
+        records.student( id, first + " " + last,
+                         ( first + "." + last + "." + index + "@example.com" ).toLowerCase(), day, month, year );
+
+        double ability = 68 + 12 * random.nextGaussian();
+        // the student aims at a module of the highest level they reach and takes everything it
+        // requires, lowest level first; the goal is still in progress for some students
+        int reach = 1 + random.nextInt( levels );
+        int[] goals = levelModules[reach - 1];
+        int goal = goals[random.nextInt( goals.length )];
+        boolean inProgress = random.nextDouble() < 0.3;
+        // some also take an elective from the first level
+        int[] firstLevel = levelModules[0];
+        int elective = random.nextDouble() < 0.25 ? firstLevel[random.nextInt( firstLevel.length )] : -1;
+        boolean[] completed = worker.completed;
+        if ( elective >= 0 && Arrays.binarySearch( plans[goal], elective ) < 0 )
+        {
+            takeModule( elective, true, id, ability, random, completed, records );
+        }
+        for ( int m : plans[goal] )
+        {
+            takeModule( m, !( inProgress && m == goal ), id, ability, random, completed, records );
+        }
+        Arrays.fill( completed, false );
+    }
+
+    // Enrolls in every course of the module, unless a prerequisite was failed, and grades them if graded
+    private void takeModule( int m, boolean graded, String id, double ability, Random random, boolean[] completed,
+                             Records records )
+    {
+        if ( !isEligible( m, completed ) )
+        {
+            return;
+        }
+        int level = moduleLevels[m];
+        boolean passedAll = graded;
+        for ( int c = 0; c < courses[m].length; c++ )
+        {
+            records.enrollment( level, id, courses[m][c] );
+            if ( graded )
+            {
+                double grade = ability + difficulties[m][c] + 9 * random.nextGaussian();
+                // two decimals, so a CSV round trip gives back the same double
+                grade = Math.round( Math.max( 0, Math.min( 100, grade ) ) * 100 ) / 100.0;
+                records.grade( level, id, courses[m][c], grade );
+                passedAll &= grade >= PASSING_GRADE;
+            }
+        }
+        completed[m] = passedAll;
+    }
+
+    private boolean isEligible( int module, boolean[] completed )
+    {
+        for ( int prerequisite : prerequisites[module] )
+        {
+            if ( !completed[prerequisite] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ExecutorService newWorkers()
+    {
+        return Executors.newFixedThreadPool( threads, runnable -> {
+            Thread thread = new Thread( runnable, "population-generator" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    private static Writer open( Path file, String header, List<Writer> files )
+        throws IOException
+    {
+        Writer writer = Files.newBufferedWriter( file, StandardCharsets.UTF_8 );
+        files.add( writer );
+        writer.write( header );
+        writer.write( '\n' );
+        return writer;
+    }
+
+    private static <T> T await( Future<T> future )
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted while generating", e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            if ( cause instanceof IOException )
+            {
+                throw new UncheckedIOException( (IOException) cause );
+            }
+            throw new IllegalStateException( cause );
+        }
+    }
+
+    public static void main( String[] args )
+        throws IOException
+    {
+        long students = Long.parseLong( args[0] );
+        long seed = args.length > 1 ? Long.parseLong( args[1] ) : 42;
+        Path directory = Path.of( args.length > 2 ? args[2] : "generated" );
+        long start = System.nanoTime();
+        new PopulationGenerator( seed, students ).writeCsv( directory );
+        double seconds = ( System.nanoTime() - start ) / 1e9;
+        System.out.printf( "Wrote %d students to %s in %.1f s (%.0f students/s)%n", students,
+                           directory.toAbsolutePath(), seconds, students / seconds );
+    }
+
+    // Scratch state of one generating thread
+    private final class Worker
+    {
+        final Random random = new Random();
+
+        final boolean[] completed = new boolean[modules.length];
+    }
+
+    // Receives the generated records of one student at a time, in order
+    private interface Records
+    {
+        void student( String id, String name, String email, int day, int month, int year );
+
+        void enrollment( int level, String studentId, Course course );
+
+        void grade( int level, String studentId, Course course, double grade );
+    }
+
+    private static final class ServiceRecords
+        implements Records
+    {
+        private final StudentService studentService;
+
+        private final CourseService courseService;
+
+        private Student current;
+
+        ServiceRecords( StudentService studentService, CourseService courseService )
+        {
+            this.studentService = studentService;
+            this.courseService = courseService;
+        }
+
+        @Override
+        public void student( String id, String name, String email, int day, int month, int year )
+        {
+            // the same epoch day DateParser gives for the CSV text
+            current = new Student( id, name, email, DateParser.epochDay( year, month, day ) );
+            studentService.subscribeStudent( current );
+        }
+
+        @Override
+        public void enrollment( int level, String studentId, Course course )
+        {
+            courseService.enrollStudent( course.getCode(), current );
+        }
+
+        @Override
+        public void grade( int level, String studentId, Course course, double grade )
+        {
+            current.gradeInCourse( course.getCode(), grade );
+        }
+    }
+
+    private static final class CsvRecords
+        implements Records
+    {
+        private final StringBuilder students = new StringBuilder( CHUNK_SIZE * 64 );
+
+        private final StringBuilder[] enrollments;
+
+        private final StringBuilder[] grades;
+
+        CsvRecords( int levels )
+        {
+            enrollments = new StringBuilder[levels];
+            grades = new StringBuilder[levels];
+            for ( int level = 0; level < levels; level++ )
+            {
+                enrollments[level] = new StringBuilder();
+                grades[level] = new StringBuilder();
+            }
+        }
+
+        @Override
+        public void student( String id, String name, String email, int day, int month, int year )
+        {
+            students.append( id ).append( ',' ).append( name ).append( ',' ).append( email ).append( ',' );
+            twoDigits( students, day ).append( '/' );
+            twoDigits( students, month ).append( '/' ).append( year ).append( '\n' );
+        }
+
+        @Override
+        public void enrollment( int level, String studentId, Course course )
+        {
+            enrollments[level].append( studentId ).append( ',' ).append( course.getCode() ).append( '\n' );
+        }
+
+        @Override
+        public void grade( int level, String studentId, Course course, double grade )
+        {
+            StringBuilder out = grades[level].append( studentId ).append( ',' ).append( course.getCode() ).append( ',' );
+            try
+            {
+                SummaryRenderer.appendGrade( out, grade );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+            out.append( '\n' );
+        }
+
+        void writeTo( Writer studentsFile, Writer[] enrollmentsFiles, Writer[] gradesFiles )
+            throws IOException
+        {
+            studentsFile.append( students );
+            for ( int level = 0; level < enrollments.length; level++ )
+            {
+                enrollmentsFiles[level].append( enrollments[level] );
+                gradesFiles[level].append( grades[level] );
+            }
+        }
+
+        private static StringBuilder twoDigits( StringBuilder out, int value )
+        {
+            return out.append( (char) ( '0' + value / 10 ) ).append( (char) ( '0' + value % 10 ) );
+        }
+    }
+
+    // SplitMix64 reseeded per student, so a student's values do not depend on which thread made them
+    private static final class Random
+    {
+        private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+        private long state;
+
+        void seed( long seed, long stream )
+        {
+            state = mix( seed ^ mix( stream * GOLDEN_GAMMA + GOLDEN_GAMMA ) );
+        }
+
+        long nextLong()
+        {
+            return mix( state += GOLDEN_GAMMA );
+        }
+
+        int nextInt( int bound )
+        {
+            return (int) ( ( nextLong() >>> 33 ) * bound >>> 31 );
+        }
+
+        double nextDouble()
+        {
+            return ( nextLong() >>> 11 ) * 0x1.0p-53;
+        }
+
+        // Standard normal value (Box-Muller, one value per call)
+        double nextGaussian()
+        {
+            double u = 1.0 - nextDouble();
+            return Math.sqrt( -2 * Math.log( u ) ) * Math.cos( 2 * Math.PI * nextDouble() );
+        }
+
+        private static long mix( long z )
+        {
+            z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+            z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+            return z ^ ( z >>> 31 );
+        }
+    }
+}
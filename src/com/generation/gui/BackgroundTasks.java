@@ -0,0 +1,191 @@
+package com.generation.gui;
+
+import java.awt.EventQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Runs GUI actions off the AWT event dispatch thread. Jobs publish text and progress from the
+// worker; both are coalesced and handed to the event thread in batches, so a long job never
+// floods the event queue. Completion and failure callbacks also run on the event thread.
+public class BackgroundTasks
+{
+    private final ExecutorService executor = Executors.newCachedThreadPool( runnable -> {
+        Thread thread = new Thread( runnable, "gui-worker" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    private final ProgressView progressView;
+
+    public BackgroundTasks( ProgressView progressView )
+    {
+        this.progressView = progressView;
+    }
+
+    public <T> Task submit( String name, Job<T> job, Consumer<String> onText, Consumer<T> onSuccess,
+                            Consumer<Exception> onFailure )
+    {
+        Task task = new Task( name, onText );
+        progressView.taskStarted( task );
+        task.future = executor.submit( () -> {
+            try
+            {
+                T result = job.run( task );
+                task.flushText();
+                EventQueue.invokeLater( () -> {
+                    if ( !task.isCancelled() )
+                    {
+                        onSuccess.accept( result );
+                    }
+                    progressView.taskFinished( task );
+                } );
+            }
+            catch ( Exception e )
+            {
+                task.flushText();
+                EventQueue.invokeLater( () -> {
+                    if ( !task.isCancelled() )
+                    {
+                        onFailure.accept( e );
+                    }
+                    progressView.taskFinished( task );
+                } );
+            }
+        } );
+        return task;
+    }
+
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    public interface Job<T>
+    {
+        T run( Task task )
+            throws Exception;
+    }
+
+    // Shown while tasks run, called on the event dispatch thread
+    public interface ProgressView
+    {
+        void taskStarted( Task task );
+
+        void progressChanged( Task task, long done, long total );
+
+        void taskFinished( Task task );
+    }
+
+    public class Task
+    {
+        private final String name;
+
+        private final Consumer<String> onText;
+
+        private final StringBuilder pendingText = new StringBuilder();
+
+        private boolean textFlushScheduled;
+
+        private volatile boolean cancelled;
+
+        private volatile long done;
+
+        private volatile long total;
+
+        private boolean progressScheduled;
+
+        private Future<?> future;
+
+        Task( String name, Consumer<String> onText )
+        {
+            this.name = name;
+            this.onText = onText;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        public void cancel()
+        {
+            cancelled = true;
+            if ( future != null )
+            {
+                future.cancel( true );
+            }
+        }
+
+        // Queues text for the event thread; at most one hand-off is pending at any time
+        public void publish( CharSequence text )
+        {
+            synchronized ( pendingText )
+            {
+                pendingText.append( text );
+                if ( textFlushScheduled )
+                {
+                    return;
+                }
+                textFlushScheduled = true;
+            }
+            EventQueue.invokeLater( this::deliverText );
+        }
+
+        public void progress( long done, long total )
+        {
+            this.done = done;
+            this.total = total;
+            synchronized ( this )
+            {
+                if ( progressScheduled )
+                {
+                    return;
+                }
+                progressScheduled = true;
+            }
+            EventQueue.invokeLater( () -> {
+                synchronized ( this )
+                {
+                    progressScheduled = false;
+                }
+                progressView.progressChanged( this, this.done, this.total );
+            } );
+        }
+
+        void flushText()
+        {
+            boolean schedule;
+            synchronized ( pendingText )
+            {
+                schedule = pendingText.length() > 0 && !textFlushScheduled;
+                textFlushScheduled |= schedule;
+            }
+            if ( schedule )
+            {
+                EventQueue.invokeLater( this::deliverText );
+            }
+        }
+
+        private void deliverText()
+        {
+            String text;
+            synchronized ( pendingText )
+            {
+                text = pendingText.toString();
+                pendingText.setLength( 0 );
+                textFlushScheduled = false;
+            }
+            if ( !text.isEmpty() && !cancelled )
+            {
+                onText.accept( text );
+            }
+        }
+    }
+}
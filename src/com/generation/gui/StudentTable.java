@@ -0,0 +1,236 @@
+package com.generation.gui;
+
+import com.generation.model.Student;
+import com.generation.service.StudentPage;
+import com.generation.service.StudentService;
+import com.generation.service.StudentSort;
+
+import java.awt.BorderLayout;
+import java.awt.Button;
+import java.awt.Canvas;
+import java.awt.Choice;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Label;
+import java.awt.Panel;
+import java.awt.Scrollbar;
+import java.awt.TextField;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+// Virtualized student table: rows are pulled from StudentService.queryStudents one page at a
+// time as the user scrolls, and only the rows that fit in the viewport are painted.
+public class StudentTable
+    extends Panel
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_SIZE = 200;
+
+    private static final String[] HEADERS = { "ID", "Name", "Email", "Courses", "Average" };
+
+    private static final int[] COLUMN_WIDTHS = { 90, 200, 240, 70, 70 };
+
+    private final StudentService studentService;
+
+    private final Choice sortChoice = new Choice();
+
+    private final TextField courseFilter = new TextField( 12 );
+
+    private final Label status = new Label();
+
+    private final Scrollbar scrollbar = new Scrollbar( Scrollbar.VERTICAL );
+
+    private final RowCanvas canvas = new RowCanvas();
+
+    // Rows fetched so far; grows only as far as the user has scrolled
+    private final List<Student> rows = new ArrayList<>();
+
+    private String nextCursor;
+
+    private boolean exhausted;
+
+    public StudentTable( StudentService studentService )
+    {
+        this.studentService = studentService;
+        setLayout( new BorderLayout() );
+
+        for ( StudentSort sort : StudentSort.values() )
+        {
+            sortChoice.add( sort.name() );
+        }
+        Button apply = new Button( "Apply" );
+        Panel controls = new Panel( new FlowLayout( FlowLayout.LEFT ) );
+        controls.add( new Label( "Sort by:" ) );
+        controls.add( sortChoice );
+        controls.add( new Label( "Course:" ) );
+        controls.add( courseFilter );
+        controls.add( apply );
+        controls.add( status );
+        add( controls, BorderLayout.NORTH );
+        add( canvas, BorderLayout.CENTER );
+        add( scrollbar, BorderLayout.EAST );
+
+        apply.addActionListener( e -> reload() );
+        courseFilter.addActionListener( e -> reload() );
+        sortChoice.addItemListener( e -> reload() );
+        scrollbar.addAdjustmentListener( e -> {
+            ensureLoaded( e.getValue() + canvas.visibleRows() );
+            canvas.repaint();
+        } );
+        canvas.addMouseWheelListener( e -> scrollbar.setValue( scrollbar.getValue() + e.getUnitsToScroll() ) );
+        canvas.addComponentListener( new ComponentAdapter()
+        {
+            @Override
+            public void componentResized( ComponentEvent e )
+            {
+                ensureLoaded( scrollbar.getValue() + canvas.visibleRows() );
+                updateScrollbar();
+            }
+        } );
+        reload();
+    }
+
+    // Drops the fetched rows and starts again from the first page with the current sort and filter
+    public void reload()
+    {
+        rows.clear();
+        nextCursor = null;
+        exhausted = false;
+        scrollbar.setValue( 0 );
+        ensureLoaded( canvas.visibleRows() );
+        canvas.repaint();
+    }
+
+    private void ensureLoaded( int rowCount )
+    {
+        while ( !exhausted && rows.size() < rowCount + PAGE_SIZE / 2 )
+        {
+            StudentPage page = studentService.queryStudents( StudentSort.valueOf( sortChoice.getSelectedItem() ),
+                                                             courseCode(), nextCursor, PAGE_SIZE );
+            appendPage( page );
+        }
+        updateScrollbar();
+    }
+
+    void appendPage( StudentPage page )
+    {
+        rows.addAll( page.getStudents() );
+        nextCursor = page.getNextCursor();
+        exhausted = !page.hasNext();
+        status.setText( rows.size() + ( exhausted ? " students" : "+ students" ) );
+    }
+
+    String courseCode()
+    {
+        String code = courseFilter.getText().trim();
+        return code.isEmpty() ? null : code;
+    }
+
+    private void updateScrollbar()
+    {
+        int visible = Math.max( 1, canvas.visibleRows() );
+        // while more pages exist, leave room below the fetched rows so the user can keep scrolling
+        int total = rows.size() + ( exhausted ? 0 : PAGE_SIZE );
+        scrollbar.setValues( Math.min( scrollbar.getValue(), Math.max( 0, total - visible ) ), visible, 0,
+                             Math.max( total, visible ) );
+        scrollbar.setBlockIncrement( visible );
+    }
+
+    private class RowCanvas
+        extends Canvas
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Font font = new Font( "Monospaced", Font.PLAIN, 12 );
+
+        private Image buffer;
+
+        int rowHeight()
+        {
+            return getFontMetrics( font ).getHeight() + 4;
+        }
+
+        int visibleRows()
+        {
+            return Math.max( 0, getHeight() / rowHeight() - 1 );
+        }
+
+        // Painting into an offscreen image avoids flicker while scrolling
+        @Override
+        public void update( Graphics g )
+        {
+            paint( g );
+        }
+
+        @Override
+        public void paint( Graphics screen )
+        {
+            if ( getWidth() <= 0 || getHeight() <= 0 )
+            {
+                return;
+            }
+            if ( buffer == null || buffer.getWidth( null ) != getWidth() || buffer.getHeight( null ) != getHeight() )
+            {
+                buffer = createImage( getWidth(), getHeight() );
+            }
+            Graphics g = buffer.getGraphics();
+            g.setFont( font );
+            FontMetrics metrics = g.getFontMetrics();
+            int rowHeight = rowHeight();
+            g.setColor( Color.WHITE );
+            g.fillRect( 0, 0, getWidth(), getHeight() );
+
+            g.setColor( new Color( 70, 130, 180 ) );
+            g.fillRect( 0, 0, getWidth(), rowHeight );
+            g.setColor( Color.WHITE );
+            drawCells( g, metrics, HEADERS, metrics.getAscent() + 2 );
+
+            int first = scrollbar.getValue();
+            int last = Math.min( rows.size(), first + visibleRows() );
+            String[] cells = new String[HEADERS.length];
+            for ( int row = first; row < last; row++ )
+            {
+                int y = ( row - first + 1 ) * rowHeight;
+                if ( row % 2 == 1 )
+                {
+                    g.setColor( new Color( 240, 240, 240 ) );
+                    g.fillRect( 0, y, getWidth(), rowHeight );
+                }
+                Student student = rows.get( row );
+                cells[0] = student.getId();
+                cells[1] = student.getName();
+                cells[2] = student.getEmail();
+                cells[3] = Integer.toString( student.getApprovedCourses().size() );
+                cells[4] = student.getGradedCourseCount() > 0 ? String.format( "%.2f", student.getAverageGrade() )
+                    : "-";
+                g.setColor( Color.BLACK );
+                drawCells( g, metrics, cells, y + metrics.getAscent() + 2 );
+            }
+            g.dispose();
+            screen.drawImage( buffer, 0, 0, null );
+        }
+
+        private void drawCells( Graphics g, FontMetrics metrics, String[] cells, int baseline )
+        {
+            int x = 4;
+            for ( int column = 0; column < cells.length; column++ )
+            {
+                String text = String.valueOf( cells[column] );
+                // clip long values to the column width
+                while ( text.length() > 1 && metrics.stringWidth( text ) > COLUMN_WIDTHS[column] - 8 )
+                {
+                    text = text.substring( 0, text.length() - 1 );
+                }
+                g.drawString( text, x, baseline );
+                x += COLUMN_WIDTHS[column];
+            }
+        }
+    }
+}
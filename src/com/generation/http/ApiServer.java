@@ -0,0 +1,558 @@
+package com.generation.http;
+
+import com.generation.metrics.Metrics;
+import com.generation.metrics.Timer;
+import com.generation.model.Course;
+import com.generation.model.GradeStatistics;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.GradeSource;
+import com.generation.service.StudentPage;
+import com.generation.service.StudentService;
+import com.generation.service.StudentSort;
+import com.generation.utils.DateParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JSON API in front of StudentService and CourseService, on the JDK's built-in HTTP server.
+//
+//   GET  /students?sort=id|name&course=CODE&cursor=C&limit=N   page of students (the students summary)
+//   POST /students          id, name, email, birthDate (DD/MM/YYYY)   subscribe a student
+//   GET  /students/{id}                                               find a student
+//   POST /enrollments       studentId, courseCode                     enroll a student in a course
+//   POST /grades            studentId, courseCode[, grade]            grade a student, randomly if no grade
+//   GET  /courses                                                     courses summary
+//   GET  /courses/{code}/average                                      average grade of a course
+//   GET  /metrics                                                     Prometheus text format, see Metrics
+//
+// Parameters come from the query string or a form-encoded request body. Every response is
+// written by a JsonWriter reused by the worker thread and sent with a Content-Length, so
+// connections stay open between requests (HTTP/1.1 keep-alive); requests pipelined on one
+// connection are answered in order.
+public class ApiServer
+    implements AutoCloseable
+{
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final StudentService studentService;
+
+    private final CourseService courseService;
+
+    private final HttpServer server;
+
+    private final ExecutorService workers;
+
+    private final ThreadLocal<JsonWriter> writers = ThreadLocal.withInitial( JsonWriter::new );
+
+    private ApiServer( StudentService studentService, CourseService courseService, HttpServer server,
+                       ExecutorService workers )
+    {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.server = server;
+        this.workers = workers;
+        server.createContext( "/students", endpoint( "/students", this::students ) );
+        server.createContext( "/enrollments", endpoint( "/enrollments", this::enrollments ) );
+        server.createContext( "/grades", endpoint( "/grades", this::grades ) );
+        server.createContext( "/courses", endpoint( "/courses", this::courses ) );
+        server.createContext( "/metrics", ApiServer::metrics );
+        server.setExecutor( workers );
+    }
+
+    // Listens on the port (0 picks a free one) with a worker thread per core, at least four
+    public static ApiServer start( int port, StudentService studentService, CourseService courseService )
+        throws IOException
+    {
+        return start( new InetSocketAddress( port ), Math.max( 4, Runtime.getRuntime().availableProcessors() ),
+                      studentService, courseService );
+    }
+
+    public static ApiServer start( InetSocketAddress address, int workerThreads, StudentService studentService,
+                                   CourseService courseService )
+        throws IOException
+    {
+        // The server writes the headers and the body separately; with Nagle's algorithm on, the body
+        // waits for the client's delayed ACK (~40 ms per response). Read once, by the first server.
+        if ( System.getProperty( "sun.net.httpserver.nodelay" ) == null )
+        {
+            System.setProperty( "sun.net.httpserver.nodelay", "true" );
+        }
+        HttpServer server = HttpServer.create( address, 1024 );
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Platform threads: virtual threads need Java 21. Handlers never block on anything but
+        // the client socket and short monitor sections, so a small fixed pool keeps up.
+        ExecutorService workers = Executors.newFixedThreadPool( workerThreads, task -> {
+            Thread thread = new Thread( task, "http-worker-" + threadNumber.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        ApiServer api = new ApiServer( studentService, courseService, server, workers );
+        server.start();
+        return api;
+    }
+
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    // Stops accepting requests and waits up to a second for the ones in flight
+    @Override
+    public void close()
+    {
+        server.stop( 1 );
+        workers.shutdown();
+        try
+        {
+            workers.awaitTermination( 1, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int students( HttpExchange exchange, JsonWriter json )
+        throws IOException
+    {
+        String id = pathTail( exchange, "/students" );
+        if ( id == null )
+        {
+            if ( isMethod( exchange, "POST" ) )
+            {
+                return subscribe( parameters( exchange ), json );
+            }
+            requireMethod( exchange, "GET" );
+            return listStudents( parameters( exchange ), json );
+        }
+        requireMethod( exchange, "GET" );
+        Student student = studentService.findStudent( id );
+        if ( student == null )
+        {
+            throw new ApiException( 404, "Student with Id = " + id + " not found" );
+        }
+        writeStudent( json, student );
+        return 200;
+    }
+
+    private int listStudents( Map<String, String> parameters, JsonWriter json )
+    {
+        String sort = parameters.getOrDefault( "sort", "id" );
+        StudentSort order;
+        if ( sort.equals( "id" ) )
+        {
+            order = StudentSort.ID;
+        }
+        else if ( sort.equals( "name" ) )
+        {
+            order = StudentSort.NAME;
+        }
+        else
+        {
+            throw new ApiException( 400, "sort must be id or name" );
+        }
+        int limit = intParameter( parameters, "limit", DEFAULT_PAGE_SIZE );
+        if ( limit < 1 || limit > MAX_PAGE_SIZE )
+        {
+            throw new ApiException( 400, "limit must be between 1 and " + MAX_PAGE_SIZE );
+        }
+        StudentPage page = studentService.queryStudents( order, parameters.get( "course" ), parameters.get( "cursor" ),
+                                                         limit );
+        json.beginObject().name( "students" ).beginArray();
+        for ( Student student : page.getStudents() )
+        {
+            writeStudent( json, student );
+        }
+        json.endArray().name( "nextCursor" ).value( page.getNextCursor() ).endObject();
+        return 200;
+    }
+
+    private int subscribe( Map<String, String> parameters, JsonWriter json )
+    {
+        String id = required( parameters, "id" );
+        String name = required( parameters, "name" );
+        String email = required( parameters, "email" );
+        int birthDate = DateParser.parseEpochDay( required( parameters, "birthDate" ) );
+        if ( birthDate == DateParser.INVALID )
+        {
+            throw new ApiException( 400, "birthDate must be a valid DD/MM/YYYY date" );
+        }
+        if ( birthDate > DateParser.today() )
+        {
+            throw new ApiException( 400, "birthDate cannot be in the future" );
+        }
+        Student student = new Student( id, name, email, birthDate );
+        boolean subscribed;
+        try
+        {
+            subscribed = studentService.subscribeIfAbsent( student );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new ApiException( 409, e.getMessage() );
+        }
+        if ( !subscribed )
+        {
+            throw new ApiException( 409, "Student with Id = " + id + " already exists" );
+        }
+        writeStudent( json, student );
+        return 201;
+    }
+
+    private int enrollments( HttpExchange exchange, JsonWriter json )
+        throws IOException
+    {
+        requireMethod( exchange, "POST" );
+        Map<String, String> parameters = parameters( exchange );
+        Student student = student( required( parameters, "studentId" ) );
+        Course course = course( required( parameters, "courseCode" ) );
+        try
+        {
+            courseService.enrollStudent( course.getCode(), student );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // a missing prerequisite
+            throw new ApiException( 409, e.getMessage() );
+        }
+        json.beginObject()
+            .name( "studentId" ).value( student.getId() )
+            .name( "courseCode" ).value( course.getCode() )
+            .name( "enrolledCount" ).value( courseService.getEnrolledCount( course.getCode() ) )
+            .endObject();
+        return 200;
+    }
+
+    private int grades( HttpExchange exchange, JsonWriter json )
+        throws IOException
+    {
+        requireMethod( exchange, "POST" );
+        Map<String, String> parameters = parameters( exchange );
+        Student student = student( required( parameters, "studentId" ) );
+        Course course = course( required( parameters, "courseCode" ) );
+        if ( !student.isCourseApproved( course.getCode() ) )
+        {
+            throw new ApiException( 409, "Student " + student.getId() + " is not enrolled in " + course.getCode() );
+        }
+        double grade;
+        String gradeText = parameters.get( "grade" );
+        if ( gradeText == null )
+        {
+            grade = GradeSource.RANDOM.nextGrade( student, course );
+        }
+        else
+        {
+            try
+            {
+                grade = Double.parseDouble( gradeText );
+            }
+            catch ( NumberFormatException e )
+            {
+                grade = Double.NaN;
+            }
+            if ( !( grade >= 0 && grade <= 100 ) )
+            {
+                throw new ApiException( 400, "grade must be a number between 0 and 100" );
+            }
+        }
+        student.gradeInCourse( course.getCode(), grade );
+        json.beginObject()
+            .name( "studentId" ).value( student.getId() )
+            .name( "courseCode" ).value( course.getCode() )
+            .name( "grade" ).grade( grade )
+            .name( "passed" ).value( grade >= 50.0 )
+            .name( "average" ).grade( student.getAverage() )
+            .endObject();
+        return 200;
+    }
+
+    private int courses( HttpExchange exchange, JsonWriter json )
+    {
+        requireMethod( exchange, "GET" );
+        String tail = pathTail( exchange, "/courses" );
+        if ( tail == null )
+        {
+            json.beginArray();
+            for ( Course course : courseService.getCourses() )
+            {
+                writeCourse( json, course );
+            }
+            json.endArray();
+            return 200;
+        }
+        if ( tail.endsWith( "/average" ) )
+        {
+            Course course = course( tail.substring( 0, tail.length() - "/average".length() ) );
+            GradeStatistics statistics = studentService.getCourseStatistics( course.getCode() );
+            json.beginObject()
+                .name( "courseCode" ).value( course.getCode() )
+                .name( "average" ).grade( average( course ) )
+                .name( "graded" ).value( statistics != null ? statistics.getCount() : 0 )
+                .endObject();
+            return 200;
+        }
+        writeCourse( json, course( tail ) );
+        return 200;
+    }
+
+    private void writeStudent( JsonWriter json, Student student )
+    {
+        json.beginObject()
+            .name( "id" ).value( student.getId() )
+            .name( "name" ).value( student.getName() )
+            .name( "email" ).value( student.getEmail() )
+            .name( "birthDate" );
+        if ( student.hasBirthDate() )
+        {
+            int birthDate = student.getBirthEpochDay();
+            json.date( DateParser.yearOf( birthDate ), DateParser.monthOf( birthDate ),
+                       DateParser.dayOfMonthOf( birthDate ) );
+        }
+        else
+        {
+            json.nullValue();
+        }
+        json.name( "average" ).grade( student.getGradedCourseCount() > 0 ? student.getAverage() : Double.NaN )
+            .name( "courses" ).beginArray();
+        for ( Course course : student.getApprovedCourses() )
+        {
+            json.beginObject()
+                .name( "code" ).value( course.getCode() )
+                .name( "grade" ).grade( student.getGrade( course.getCode() ) )
+                .endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    private void writeCourse( JsonWriter json, Course course )
+    {
+        json.beginObject()
+            .name( "code" ).value( course.getCode() )
+            .name( "name" ).value( course.getName() )
+            .name( "credits" ).value( course.getCredits() )
+            .name( "module" ).value( course.getModule() != null ? course.getModule().getCode() : null )
+            .name( "enrolled" ).value( courseService.getEnrolledCount( course.getCode() ) )
+            .name( "average" ).grade( average( course ) )
+            .endObject();
+    }
+
+    // NaN when nobody has been graded, which the writer turns into null
+    private double average( Course course )
+    {
+        double average = studentService.getCourseAverageGrade( course.getCode() );
+        return average == -1 ? Double.NaN : average;
+    }
+
+    private Student student( String id )
+    {
+        Student student = studentService.findStudent( id );
+        if ( student == null )
+        {
+            throw new ApiException( 404, "Student with Id = " + id + " not found" );
+        }
+        return student;
+    }
+
+    private Course course( String code )
+    {
+        Course course = courseService.getCourse( code );
+        if ( course == null )
+        {
+            throw new ApiException( 404, "Course with Code = " + code + " not found" );
+        }
+        return course;
+    }
+
+    private static void metrics( HttpExchange exchange )
+        throws IOException
+    {
+        byte[] body = Metrics.dump().getBytes( StandardCharsets.UTF_8 );
+        exchange.getResponseHeaders().set( "Content-Type", Metrics.CONTENT_TYPE );
+        exchange.sendResponseHeaders( 200, body.length );
+        try ( OutputStream out = exchange.getResponseBody() )
+        {
+            out.write( body );
+        }
+        exchange.close();
+    }
+
+    private HttpHandler endpoint( String context, Endpoint endpoint )
+    {
+        Timer timer = Metrics.timer( "http " + context );
+        return exchange -> {
+            long start = timer.start();
+            JsonWriter json = writers.get();
+            json.reset();
+            int status;
+            try
+            {
+                status = endpoint.handle( exchange, json );
+            }
+            catch ( ApiException e )
+            {
+                status = e.status;
+                writeError( json, e.getMessage() );
+            }
+            catch ( RuntimeException e )
+            {
+                status = 500;
+                writeError( json, String.valueOf( e ) );
+            }
+            try
+            {
+                send( exchange, status, json );
+            }
+            finally
+            {
+                json.reset();
+                exchange.close();
+                timer.stop( start );
+            }
+        };
+    }
+
+    private static void writeError( JsonWriter json, String message )
+    {
+        json.reset();
+        json.beginObject().name( "error" ).value( message ).endObject();
+    }
+
+    private static void send( HttpExchange exchange, int status, JsonWriter json )
+        throws IOException
+    {
+        // the rest of the body has to be read before the connection can carry the next request
+        try ( InputStream body = exchange.getRequestBody() )
+        {
+            body.transferTo( OutputStream.nullOutputStream() );
+        }
+        exchange.getResponseHeaders().set( "Content-Type", JSON );
+        exchange.sendResponseHeaders( status, json.size() );
+        try ( OutputStream out = exchange.getResponseBody() )
+        {
+            json.writeTo( out );
+        }
+    }
+
+    // The decoded path below the context, or null for the context itself
+    private static String pathTail( HttpExchange exchange, String context )
+    {
+        String path = exchange.getRequestURI().getPath();
+        if ( path.length() <= context.length() + 1 )
+        {
+            return null;
+        }
+        return path.substring( context.length() + 1 );
+    }
+
+    private static boolean isMethod( HttpExchange exchange, String method )
+    {
+        return exchange.getRequestMethod().equalsIgnoreCase( method );
+    }
+
+    private static void requireMethod( HttpExchange exchange, String method )
+    {
+        if ( !isMethod( exchange, method ) )
+        {
+            exchange.getResponseHeaders().set( "Allow", method );
+            throw new ApiException( 405, "Method " + exchange.getRequestMethod() + " not allowed" );
+        }
+    }
+
+    // Query string parameters, then form-encoded body parameters, which win on conflicts
+    private static Map<String, String> parameters( HttpExchange exchange )
+        throws IOException
+    {
+        Map<String, String> parameters = new HashMap<>();
+        decode( exchange.getRequestURI().getRawQuery(), parameters );
+        String contentType = exchange.getRequestHeaders().getFirst( "Content-Type" );
+        if ( contentType != null && contentType.startsWith( "application/x-www-form-urlencoded" ) )
+        {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            decode( new String( body, StandardCharsets.UTF_8 ), parameters );
+        }
+        return parameters;
+    }
+
+    private static void decode( String encoded, Map<String, String> parameters )
+    {
+        if ( encoded == null || encoded.isEmpty() )
+        {
+            return;
+        }
+        for ( String pair : encoded.split( "&" ) )
+        {
+            int equals = pair.indexOf( '=' );
+            String key = equals < 0 ? pair : pair.substring( 0, equals );
+            String value = equals < 0 ? "" : pair.substring( equals + 1 );
+            parameters.put( URLDecoder.decode( key, StandardCharsets.UTF_8 ),
+                            URLDecoder.decode( value, StandardCharsets.UTF_8 ) );
+        }
+    }
+
+    private static String required( Map<String, String> parameters, String name )
+    {
+        String value = parameters.get( name );
+        if ( value == null || value.isBlank() )
+        {
+            throw new ApiException( 400, "Missing parameter " + name );
+        }
+        return value.trim();
+    }
+
+    private static int intParameter( Map<String, String> parameters, String name, int defaultValue )
+    {
+        String value = parameters.get( name );
+        if ( value == null )
+        {
+            return defaultValue;
+        }
+        try
+        {
+            return Integer.parseInt( value );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new ApiException( 400, name + " must be a number" );
+        }
+    }
+
+    private interface Endpoint
+    {
+        // Writes the response body and returns the status code
+        int handle( HttpExchange exchange, JsonWriter json )
+            throws IOException;
+    }
+
+    // Turned into an error response with the given status
+    private static class ApiException
+        extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException( int status, String message )
+        {
+            super( message );
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.generation.http;
+
+import com.generation.utils.SummaryRenderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// Streams JSON as UTF-8 into a growable byte buffer that is reused between responses, so
+// writing a response allocates nothing once the buffer has grown to the usual response size.
+// Commas are inserted automatically between members and array elements.
+final class JsonWriter
+    implements Appendable
+{
+    private static final int MAX_DEPTH = 32;
+
+    // Buffers that grew past this for one large response are dropped after it is sent
+    private static final int RETAINED_CAPACITY = 1 << 20;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private byte[] buffer = new byte[8192];
+
+    private int size;
+
+    private int depth;
+
+    // Whether the container at each depth still has no members
+    private final boolean[] empty = new boolean[MAX_DEPTH];
+
+    // Set after a member name, so the value that follows does not get a comma
+    private boolean afterName;
+
+    void reset()
+    {
+        if ( buffer.length > RETAINED_CAPACITY )
+        {
+            buffer = new byte[8192];
+        }
+        size = 0;
+        depth = 0;
+        afterName = false;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    void writeTo( OutputStream out )
+        throws IOException
+    {
+        out.write( buffer, 0, size );
+    }
+
+    JsonWriter beginObject()
+    {
+        return open( '{' );
+    }
+
+    JsonWriter endObject()
+    {
+        return close( '}' );
+    }
+
+    JsonWriter beginArray()
+    {
+        return open( '[' );
+    }
+
+    JsonWriter endArray()
+    {
+        return close( ']' );
+    }
+
+    JsonWriter name( String name )
+    {
+        separate();
+        string( name );
+        put( ':' );
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value( String value )
+    {
+        separate();
+        if ( value == null )
+        {
+            ascii( "null" );
+        }
+        else
+        {
+            string( value );
+        }
+        return this;
+    }
+
+    JsonWriter value( long value )
+    {
+        separate();
+        if ( value == Long.MIN_VALUE )
+        {
+            ascii( "-9223372036854775808" );
+            return this;
+        }
+        if ( value < 0 )
+        {
+            put( '-' );
+            value = -value;
+        }
+        ensure( 20 );
+        int start = size;
+        do
+        {
+            buffer[size++] = (byte) ( '0' + value % 10 );
+            value /= 10;
+        }
+        while ( value > 0 );
+        // digits were written least significant first
+        for ( int i = start, j = size - 1; i < j; i++, j-- )
+        {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+        return this;
+    }
+
+    JsonWriter value( boolean value )
+    {
+        separate();
+        ascii( value ? "true" : "false" );
+        return this;
+    }
+
+    // A grade with two decimals, or null for NaN
+    JsonWriter grade( double grade )
+    {
+        separate();
+        if ( Double.isNaN( grade ) )
+        {
+            ascii( "null" );
+            return this;
+        }
+        try
+        {
+            SummaryRenderer.appendGrade( this, grade );
+        }
+        catch ( IOException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        return this;
+    }
+
+    // ISO-8601 date, written without going through a formatter
+    JsonWriter date( int year, int month, int day )
+    {
+        separate();
+        ensure( 12 );
+        buffer[size++] = '"';
+        digits( year, 4 );
+        buffer[size++] = '-';
+        digits( month, 2 );
+        buffer[size++] = '-';
+        digits( day, 2 );
+        buffer[size++] = '"';
+        return this;
+    }
+
+    JsonWriter nullValue()
+    {
+        separate();
+        ascii( "null" );
+        return this;
+    }
+
+    // Raw characters for Appendable callers such as SummaryRenderer.appendGrade; no escaping
+    @Override
+    public JsonWriter append( CharSequence text )
+    {
+        for ( int i = 0; i < text.length(); i++ )
+        {
+            put( text.charAt( i ) );
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter append( CharSequence text, int start, int end )
+    {
+        return append( text.subSequence( start, end ) );
+    }
+
+    @Override
+    public JsonWriter append( char c )
+    {
+        put( c );
+        return this;
+    }
+
+    private JsonWriter open( char bracket )
+    {
+        separate();
+        put( bracket );
+        empty[depth++] = true;
+        return this;
+    }
+
+    private JsonWriter close( char bracket )
+    {
+        depth--;
+        put( bracket );
+        return this;
+    }
+
+    private void separate()
+    {
+        if ( afterName )
+        {
+            afterName = false;
+            return;
+        }
+        if ( depth > 0 )
+        {
+            if ( !empty[depth - 1] )
+            {
+                put( ',' );
+            }
+            empty[depth - 1] = false;
+        }
+    }
+
+    private void string( String value )
+    {
+        ensure( value.length() + 2 );
+        buffer[size++] = '"';
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c >= 0x20 && c < 0x80 && c != '"' && c != '\\' )
+            {
+                put( c );
+            }
+            else if ( c == '"' || c == '\\' )
+            {
+                put( '\\' );
+                put( c );
+            }
+            else if ( c < 0x20 )
+            {
+                ensure( 6 );
+                buffer[size++] = '\\';
+                buffer[size++] = 'u';
+                buffer[size++] = '0';
+                buffer[size++] = '0';
+                buffer[size++] = HEX[c >> 4];
+                buffer[size++] = HEX[c & 0xF];
+            }
+            else if ( Character.isHighSurrogate( c ) && i + 1 < value.length()
+                && Character.isLowSurrogate( value.charAt( i + 1 ) ) )
+            {
+                int codePoint = Character.toCodePoint( c, value.charAt( ++i ) );
+                ensure( 4 );
+                buffer[size++] = (byte) ( 0xF0 | codePoint >> 18 );
+                buffer[size++] = (byte) ( 0x80 | ( codePoint >> 12 & 0x3F ) );
+                buffer[size++] = (byte) ( 0x80 | ( codePoint >> 6 & 0x3F ) );
+                buffer[size++] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+            }
+            else
+            {
+                // lone surrogates are written as their code unit, like String.getBytes would replace them
+                ensure( 3 );
+                if ( c < 0x800 )
+                {
+                    buffer[size++] = (byte) ( 0xC0 | c >> 6 );
+                }
+                else
+                {
+                    buffer[size++] = (byte) ( 0xE0 | c >> 12 );
+                    buffer[size++] = (byte) ( 0x80 | ( c >> 6 & 0x3F ) );
+                }
+                buffer[size++] = (byte) ( 0x80 | ( c & 0x3F ) );
+            }
+        }
+        put( '"' );
+    }
+
+    private void digits( int value, int width )
+    {
+        for ( int i = width - 1; i >= 0; i-- )
+        {
+            buffer[size + i] = (byte) ( '0' + value % 10 );
+            value /= 10;
+        }
+        size += width;
+    }
+
+    private void ascii( String text )
+    {
+        ensure( text.length() );
+        for ( int i = 0; i < text.length(); i++ )
+        {
+            buffer[size++] = (byte) text.charAt( i );
+        }
+    }
+
+    private void put( char c )
+    {
+        ensure( 1 );
+        buffer[size++] = (byte) c;
+    }
+
+    private void ensure( int extra )
+    {
+        if ( size + extra > buffer.length )
+        {
+            buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, size + extra ) );
+        }
+    }
+}
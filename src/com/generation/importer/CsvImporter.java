@@ -0,0 +1,406 @@
+package com.generation.importer;
+
+import com.generation.model.Course;
+import com.generation.model.Module;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.StudentService;
+import com.generation.utils.DateParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Streams large CSV files into the services. Lines are read on the calling thread and parsed and
+// validated in batches on a worker pool; the valid rows are then applied to the services one batch
+// at a time in file order, so a later row for the same student (a repeated id, a regrade) always
+// wins, as it would in a sequential import. Invalid rows, including rows the services reject on
+// insert such as a taken email or a missing prerequisite, are recorded in the ImportReport instead
+// of aborting the import.
+//
+// Formats (plain comma separated, no quoting; an optional header line is skipped):
+//   students:    id,name,email,birthDate (DD/MM/YYYY)
+//   enrollments: studentId,courseCode
+//   grades:      studentId,courseCode,grade
+public class CsvImporter
+    implements AutoCloseable
+{
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    public static final int DEFAULT_MAX_RECORDED_ERRORS = 1_000;
+
+    private final StudentService studentService;
+
+    private final CourseService courseService;
+
+    private final ExecutorService workers;
+
+    private final int threads;
+
+    private final int batchSize;
+
+    public CsvImporter( StudentService studentService, CourseService courseService )
+    {
+        this( studentService, courseService, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE );
+    }
+
+    public CsvImporter( StudentService studentService, CourseService courseService, int threads, int batchSize )
+    {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.workers = Executors.newFixedThreadPool( threads, runnable -> {
+            Thread thread = new Thread( runnable, "csv-import" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    public ImportReport importStudents( Path file )
+        throws IOException
+    {
+        try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) )
+        {
+            return importStudents( file.toString(), reader );
+        }
+    }
+
+    public ImportReport importEnrollments( Path file )
+        throws IOException
+    {
+        try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) )
+        {
+            return importEnrollments( file.toString(), reader );
+        }
+    }
+
+    public ImportReport importGrades( Path file )
+        throws IOException
+    {
+        try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) )
+        {
+            return importGrades( file.toString(), reader );
+        }
+    }
+
+    public ImportReport importStudents( String source, Reader reader )
+        throws IOException
+    {
+        int today = DateParser.today();
+        return run( source, reader, "id", 4, fields -> {
+            String id = fields[0];
+            if ( id.isEmpty() || fields[1].isEmpty() || fields[2].isEmpty() )
+            {
+                throw new IllegalArgumentException( "id, name and email are required" );
+            }
+            int birthDate = DateParser.parseEpochDay( fields[3] );
+            if ( birthDate == DateParser.INVALID )
+            {
+                throw new IllegalArgumentException( "invalid birth date '" + fields[3] + "', expected DD/MM/YYYY" );
+            }
+            if ( birthDate > today )
+            {
+                throw new IllegalArgumentException( "birth date is in the future" );
+            }
+            return new Student( id, fields[1], fields[2], birthDate );
+        }, studentService::subscribeStudent );
+    }
+
+    public ImportReport importEnrollments( String source, Reader reader )
+        throws IOException
+    {
+        return run( source, reader, "studentId", 2, fields -> {
+            Student student = requireStudent( fields[0] );
+            Course course = requireCourse( fields[1] );
+            Module missing = student.findMissingPrerequisite( course );
+            if ( missing != null )
+            {
+                throw new IllegalArgumentException( "prerequisite module '" + missing.getCode() + "' not completed" );
+            }
+            return new Enrollment( student, course );
+        }, enrollment -> courseService.enrollStudent( enrollment.course.getCode(), enrollment.student ) );
+    }
+
+    public ImportReport importGrades( String source, Reader reader )
+        throws IOException
+    {
+        return run( source, reader, "studentId", 3, fields -> {
+            Student student = requireStudent( fields[0] );
+            Course course = requireCourse( fields[1] );
+            double grade;
+            try
+            {
+                grade = Double.parseDouble( fields[2] );
+            }
+            catch ( NumberFormatException e )
+            {
+                throw new IllegalArgumentException( "invalid grade '" + fields[2] + "'" );
+            }
+            if ( !( grade >= 0 && grade <= 100 ) )
+            {
+                throw new IllegalArgumentException( "grade must be between 0 and 100" );
+            }
+            return new Grade( student, course.getCode(), grade );
+        }, grade -> grade.student.gradeInCourse( grade.courseCode, grade.grade ) );
+    }
+
+    private Student requireStudent( String studentId )
+    {
+        Student student = studentService.findStudent( studentId );
+        if ( student == null )
+        {
+            throw new IllegalArgumentException( "unknown student '" + studentId + "'" );
+        }
+        return student;
+    }
+
+    private Course requireCourse( String courseCode )
+    {
+        Course course = courseService.getCourse( courseCode );
+        if ( course == null )
+        {
+            throw new IllegalArgumentException( "unknown course '" + courseCode + "'" );
+        }
+        return course;
+    }
+
+    private <T> ImportReport run( String source, Reader reader, String headerField, int fieldCount,
+                                  RowParser<T> parser, RowWriter<T> writer )
+        throws IOException
+    {
+        ImportReport report = new ImportReport( source, DEFAULT_MAX_RECORDED_ERRORS );
+        // bounds the number of batches held in memory at once
+        Semaphore inFlight = new Semaphore( threads * 2 );
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Turns turns = new Turns();
+        long sequence = 0;
+        long start = System.nanoTime();
+
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader( reader );
+        long lineNumber = 0;
+        long batchStart = 1;
+        List<String> batch = new ArrayList<>( batchSize );
+        String line;
+        try
+        {
+            // stop reading once a batch has failed, the import is aborted anyway
+            while ( failure.get() == null && ( line = lines.readLine() ) != null )
+            {
+                lineNumber++;
+                if ( lineNumber == 1 && line.regionMatches( true, 0, headerField + ",", 0, headerField.length() + 1 ) )
+                {
+                    batchStart = 2;
+                    continue;
+                }
+                batch.add( line );
+                if ( batch.size() == batchSize )
+                {
+                    submit( batch, batchStart, sequence++, fieldCount, parser, writer, report, inFlight, turns, failure );
+                    batch = new ArrayList<>( batchSize );
+                    batchStart = lineNumber + 1;
+                }
+            }
+            if ( !batch.isEmpty() && failure.get() == null )
+            {
+                submit( batch, batchStart, sequence, fieldCount, parser, writer, report, inFlight, turns, failure );
+            }
+            // wait for the outstanding batches
+            inFlight.acquire( threads * 2 );
+            inFlight.release( threads * 2 );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Import of " + source + " interrupted", e );
+        }
+        if ( failure.get() != null )
+        {
+            throw failure.get();
+        }
+        report.setElapsedNanos( System.nanoTime() - start );
+        return report;
+    }
+
+    private <T> void submit( List<String> batch, long firstLineNumber, long sequence, int fieldCount,
+                             RowParser<T> parser, RowWriter<T> writer, ImportReport report, Semaphore inFlight,
+                             Turns turns, AtomicReference<RuntimeException> failure )
+        throws InterruptedException
+    {
+        inFlight.acquire();
+        workers.execute( () -> {
+            // parsed in parallel with the other batches
+            List<T> rows = new ArrayList<>( batch.size() );
+            int[] rowLines = new int[batch.size()];
+            try
+            {
+                String[] fields = new String[fieldCount];
+                for ( int i = 0; i < batch.size() && failure.get() == null; i++ )
+                {
+                    String line = batch.get( i );
+                    if ( !split( line, fields ) )
+                    {
+                        report.reject( firstLineNumber + i, line, "expected " + fieldCount + " fields" );
+                        continue;
+                    }
+                    try
+                    {
+                        T row = parser.parse( fields );
+                        rowLines[rows.size()] = i;
+                        rows.add( row );
+                    }
+                    catch ( IllegalArgumentException e )
+                    {
+                        report.reject( firstLineNumber + i, line, e.getMessage() );
+                    }
+                }
+            }
+            catch ( RuntimeException e )
+            {
+                failure.compareAndSet( null, e );
+            }
+            try
+            {
+                // applied in file order; the executor runs batches in submission order, so every
+                // earlier batch is already running and this never waits on a queued one
+                turns.await( sequence );
+                int imported = 0;
+                for ( int r = 0; r < rows.size() && failure.get() == null; r++ )
+                {
+                    try
+                    {
+                        writer.write( rows.get( r ) );
+                        imported++;
+                    }
+                    catch ( IllegalArgumentException e )
+                    {
+                        int i = rowLines[r];
+                        report.reject( firstLineNumber + i, batch.get( i ), e.getMessage() );
+                    }
+                }
+                report.rowsRead( batch.size() );
+                report.rowsImported( imported );
+            }
+            catch ( RuntimeException e )
+            {
+                failure.compareAndSet( null, e );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet( null, new IllegalStateException( "Import interrupted", e ) );
+            }
+            finally
+            {
+                turns.advance( sequence );
+                inFlight.release();
+            }
+        } );
+    }
+
+    // Splits on commas into the given array without regex; false if the field count does not match
+    private static boolean split( String line, String[] fields )
+    {
+        int from = 0;
+        for ( int i = 0; i < fields.length; i++ )
+        {
+            int comma = line.indexOf( ',', from );
+            boolean last = i == fields.length - 1;
+            if ( last != ( comma < 0 ) )
+            {
+                return false;
+            }
+            int to = last ? line.length() : comma;
+            fields[i] = line.substring( from, to ).trim();
+            from = to + 1;
+        }
+        return true;
+    }
+
+    @Override
+    public void close()
+    {
+        workers.shutdown();
+        try
+        {
+            workers.awaitTermination( 1, TimeUnit.MINUTES );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface RowParser<T>
+    {
+        // Throws IllegalArgumentException with a readable message when the row is invalid
+        T parse( String[] fields );
+    }
+
+    private interface RowWriter<T>
+    {
+        // Throws IllegalArgumentException when the services reject the row
+        void write( T row );
+    }
+
+    // Hands out the right to apply a batch in sequence order
+    private static final class Turns
+    {
+        private long next;
+
+        synchronized void await( long sequence )
+            throws InterruptedException
+        {
+            while ( next != sequence )
+            {
+                wait();
+            }
+        }
+
+        // Called once per batch after its turn, also when the batch failed
+        synchronized void advance( long sequence )
+        {
+            next = Math.max( next, sequence + 1 );
+            notifyAll();
+        }
+    }
+
+    private static class Enrollment
+    {
+        private final Student student;
+
+        private final Course course;
+
+        Enrollment( Student student, Course course )
+        {
+            this.student = student;
+            this.course = course;
+        }
+    }
+
+    private static class Grade
+    {
+        private final Student student;
+
+        private final String courseCode;
+
+        private final double grade;
+
+        Grade( Student student, String courseCode, double grade )
+        {
+            this.student = student;
+            this.courseCode = courseCode;
+            this.grade = grade;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.generation.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Outcome of one import: row counts plus the rejected rows with the reason they were rejected
+public class ImportReport
+{
+    private final String source;
+
+    private final int maxRecordedErrors;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    private final AtomicLong rowsImported = new AtomicLong();
+
+    private final AtomicLong rowsRejected = new AtomicLong();
+
+    private final AtomicInteger recordedErrors = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<RowError> errors = new ConcurrentLinkedQueue<>();
+
+    private long elapsedNanos;
+
+    public ImportReport( String source, int maxRecordedErrors )
+    {
+        this.source = source;
+        this.maxRecordedErrors = maxRecordedErrors;
+    }
+
+    void rowsRead( long rows )
+    {
+        rowsRead.addAndGet( rows );
+    }
+
+    void rowsImported( long rows )
+    {
+        rowsImported.addAndGet( rows );
+    }
+
+    // Every rejection is counted, but only the first maxRecordedErrors are kept in memory
+    void reject( long lineNumber, String line, String message )
+    {
+        rowsRejected.incrementAndGet();
+        if ( recordedErrors.incrementAndGet() <= maxRecordedErrors )
+        {
+            errors.add( new RowError( lineNumber, line, message ) );
+        }
+    }
+
+    void setElapsedNanos( long elapsedNanos )
+    {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getSource()
+    {
+        return source;
+    }
+
+    public long getRowsRead()
+    {
+        return rowsRead.get();
+    }
+
+    public long getRowsImported()
+    {
+        return rowsImported.get();
+    }
+
+    public long getRowsRejected()
+    {
+        return rowsRejected.get();
+    }
+
+    // Rejected rows sorted by line number
+    public List<RowError> getErrors()
+    {
+        List<RowError> sorted = new ArrayList<>( errors );
+        sorted.sort( ( a, b ) -> Long.compare( a.getLineNumber(), b.getLineNumber() ) );
+        return sorted;
+    }
+
+    public double getRowsPerSecond()
+    {
+        return elapsedNanos > 0 ? getRowsRead() * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ImportReport{" + "source='" + source + '\'' + ", read=" + getRowsRead() + ", imported="
+            + getRowsImported() + ", rejected=" + getRowsRejected() + ", rowsPerSecond=" + (long) getRowsPerSecond()
+            + '}';
+    }
+
+    public static class RowError
+    {
+        private final long lineNumber;
+
+        private final String line;
+
+        private final String message;
+
+        RowError( long lineNumber, String line, String message )
+        {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLineNumber()
+        {
+            return lineNumber;
+        }
+
+        public String getLine()
+        {
+            return line;
+        }
+
+        public String getMessage()
+        {
+            return message;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "line " + lineNumber + ": " + message + " [" + line + "]";
+        }
+    }
+}
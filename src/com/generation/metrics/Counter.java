@@ -0,0 +1,47 @@
+package com.generation.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic event counter; increments from many threads do not contend on one cache line
+public class Counter
+{
+    private final String name;
+
+    private final String help;
+
+    private final LongAdder count = new LongAdder();
+
+    Counter( String name, String help )
+    {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getHelp()
+    {
+        return help;
+    }
+
+    public void increment()
+    {
+        if ( Metrics.isEnabled() )
+        {
+            count.increment();
+        }
+    }
+
+    public long get()
+    {
+        return count.sum();
+    }
+
+    void reset()
+    {
+        count.reset();
+    }
+}
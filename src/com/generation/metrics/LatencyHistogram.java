@@ -0,0 +1,123 @@
+package com.generation.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram: every power of two of nanoseconds is
+// split into 16 equal buckets, so any recorded value is known to within 1/16 (6.25%) from 1 ns up
+// to about 36 minutes. Recording is lock-free: one bucket increment, one adder and a max that is
+// only written when it grows. Reads are not atomic with respect to concurrent recording.
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Values at or above 2^MAX_EXPONENT ns land in the last bucket
+    private static final int MAX_EXPONENT = 41;
+
+    static final int BUCKETS = ( MAX_EXPONENT - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator( Math::max, 0 );
+
+    public void record( long nanos )
+    {
+        if ( nanos < 0 )
+        {
+            nanos = 0;
+        }
+        counts.incrementAndGet( bucketOf( nanos ) );
+        totalNanos.add( nanos );
+        maxNanos.accumulate( nanos );
+    }
+
+    public long getCount()
+    {
+        long count = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            count += counts.get( i );
+        }
+        return count;
+    }
+
+    public long getTotalNanos()
+    {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos()
+    {
+        return maxNanos.get();
+    }
+
+    // Smallest recorded value such that the given share (0-1) of the values are at or below it,
+    // reported as the upper end of its bucket but never above the maximum; 0 if nothing was recorded
+    public long getValueAtQuantile( double quantile )
+    {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            snapshot[i] = counts.get( i );
+            count += snapshot[i];
+        }
+        if ( count == 0 )
+        {
+            return 0;
+        }
+        long rank = Math.max( 1, (long) Math.ceil( quantile * count ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += snapshot[i];
+            if ( seen >= rank )
+            {
+                return Math.min( highestValueOf( i ), getMaxNanos() );
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public void reset()
+    {
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            counts.set( i, 0 );
+        }
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    static int bucketOf( long nanos )
+    {
+        if ( nanos < SUB_BUCKETS )
+        {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros( nanos );
+        if ( exponent >= MAX_EXPONENT )
+        {
+            return BUCKETS - 1;
+        }
+        // the top SUB_BUCKET_BITS bits below the leading one pick the sub-bucket
+        int subBucket = (int) ( nanos >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf( int bucket )
+    {
+        if ( bucket < SUB_BUCKETS )
+        {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) ( SUB_BUCKETS + bucket % SUB_BUCKETS ) << shift;
+        return lowest + ( 1L << shift ) - 1;
+    }
+}
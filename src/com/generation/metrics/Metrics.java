@@ -0,0 +1,143 @@
+package com.generation.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Process-wide registry of operation timers and event counters, dumped in the Prometheus text
+// exposition format. Enabled unless the JVM runs with -Dstudentgen.metrics=false; it can also be
+// switched at runtime. Timers time one call in -Dstudentgen.metrics.sampleEvery (a power of two,
+// default 8; 1 times every call). Timers and counters are normally created once into static fields.
+public class Metrics
+{
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String DURATION = "studentgen_operation_duration_seconds";
+
+    private static final String MAX_DURATION = "studentgen_operation_duration_max_seconds";
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+
+    private static volatile boolean enabled = !"false".equals( System.getProperty( "studentgen.metrics" ) );
+
+    // sampleEvery - 1, so a call is timed when its random number has none of these bits set
+    static volatile int sampleMask = Integer.highestOneBit(
+        Math.max( 1, Integer.getInteger( "studentgen.metrics.sampleEvery", 8 ) ) ) - 1;
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public static void setEnabled( boolean enabled )
+    {
+        Metrics.enabled = enabled;
+    }
+
+    public static int getSampleEvery()
+    {
+        return sampleMask + 1;
+    }
+
+    // Rounded down to a power of two
+    public static void setSampleEvery( int sampleEvery )
+    {
+        sampleMask = Integer.highestOneBit( Math.max( 1, sampleEvery ) ) - 1;
+    }
+
+    // The timer of the operation, created on first use
+    public static Timer timer( String operation )
+    {
+        return timers.computeIfAbsent( operation, Timer::new );
+    }
+
+    // The counter with the given Prometheus metric name, created on first use
+    public static Counter counter( String name, String help )
+    {
+        return counters.computeIfAbsent( name, key -> new Counter( key, help ) );
+    }
+
+    // Clears every recorded value; the timers and counters stay registered
+    public static void reset()
+    {
+        for ( Timer timer : timers.values() )
+        {
+            timer.reset();
+        }
+        for ( Counter counter : counters.values() )
+        {
+            counter.reset();
+        }
+    }
+
+    public static String dump()
+    {
+        StringBuilder out = new StringBuilder( 4096 );
+        try
+        {
+            writePrometheus( out );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        return out.toString();
+    }
+
+    // Timers become one summary (quantiles, _sum, _count) plus a max gauge labelled by operation;
+    // quantiles and the max come from the timed calls, _sum is extrapolated to all of them.
+    // Counters are written as they are named.
+    public static void writePrometheus( Appendable out )
+        throws IOException
+    {
+        out.append( "# HELP " ).append( DURATION ).append( " Latency of service and API operations.\n" );
+        out.append( "# TYPE " ).append( DURATION ).append( " summary\n" );
+        for ( Timer timer : timers.values() )
+        {
+            LatencyHistogram histogram = timer.getHistogram();
+            boolean timed = histogram.getCount() > 0;
+            for ( double quantile : QUANTILES )
+            {
+                // Prometheus reports quantiles without observations as NaN
+                sample( out, DURATION, timer.getOperation(), Double.toString( quantile ),
+                        timed ? seconds( histogram.getValueAtQuantile( quantile ) ) : "NaN" );
+            }
+            sample( out, DURATION + "_sum", timer.getOperation(), null,
+                    Double.toString( timer.getEstimatedTotalNanos() / 1e9 ) );
+            sample( out, DURATION + "_count", timer.getOperation(), null, Long.toString( timer.getCount() ) );
+        }
+        out.append( "# HELP " ).append( MAX_DURATION ).append( " Slowest recorded call of each operation.\n" );
+        out.append( "# TYPE " ).append( MAX_DURATION ).append( " gauge\n" );
+        for ( Timer timer : timers.values() )
+        {
+            sample( out, MAX_DURATION, timer.getOperation(), null, seconds( timer.getHistogram().getMaxNanos() ) );
+        }
+        for ( Counter counter : counters.values() )
+        {
+            out.append( "# HELP " ).append( counter.getName() ).append( ' ' ).append( counter.getHelp() ).append( '\n' );
+            out.append( "# TYPE " ).append( counter.getName() ).append( " counter\n" );
+            out.append( counter.getName() ).append( ' ' ).append( Long.toString( counter.get() ) ).append( '\n' );
+        }
+    }
+
+    private static void sample( Appendable out, String name, String operation, String quantile, String value )
+        throws IOException
+    {
+        out.append( name ).append( "{operation=\"" ).append( operation ).append( '"' );
+        if ( quantile != null )
+        {
+            out.append( ",quantile=\"" ).append( quantile ).append( '"' );
+        }
+        out.append( "} " ).append( value ).append( '\n' );
+    }
+
+    private static String seconds( long nanos )
+    {
+        return Double.toString( nanos / 1e9 );
+    }
+}
@@ -0,0 +1,91 @@
+package com.generation.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts and times one operation:
+//
+//   long start = TIMER.start();
+//   try { ... } finally { TIMER.stop( start ); }
+//
+// Every call is counted, but only a random one in Metrics.getSampleEvery() calls is timed into the
+// histogram: two clock reads cost more than the whole overhead budget on some machines, while the
+// latency distribution of a sample is the same. While metrics are disabled start() is a single
+// volatile read and stop() a single branch.
+public class Timer
+{
+    private final String operation;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    Timer( String operation )
+    {
+        this.operation = operation;
+    }
+
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    // Durations of the timed calls
+    public LatencyHistogram getHistogram()
+    {
+        return histogram;
+    }
+
+    // Every call made while metrics were enabled, timed or not
+    public long getCount()
+    {
+        return calls.sum();
+    }
+
+    // Total time of all calls, extrapolated from the timed ones
+    public double getEstimatedTotalNanos()
+    {
+        long timed = histogram.getCount();
+        return timed > 0 ? (double) histogram.getTotalNanos() * getCount() / timed : 0;
+    }
+
+    // 0 when the call is not timed, which makes the matching stop() a no-op
+    public long start()
+    {
+        if ( !Metrics.isEnabled() )
+        {
+            return 0;
+        }
+        calls.increment();
+        int sampleMask = Metrics.sampleMask;
+        if ( sampleMask != 0 && ( ThreadLocalRandom.current().nextInt() & sampleMask ) != 0 )
+        {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    public void stop( long start )
+    {
+        if ( start != 0 )
+        {
+            histogram.record( System.nanoTime() - start );
+        }
+    }
+
+    // For operations that measure their own duration; always timed
+    public void record( long nanos )
+    {
+        if ( Metrics.isEnabled() )
+        {
+            calls.increment();
+            histogram.record( nanos );
+        }
+    }
+
+    void reset()
+    {
+        calls.reset();
+        histogram.reset();
+    }
+}
@@ -4,6 +4,9 @@ public class Course
 {
     private final String code;
 
+    // Interned id of the code; equal courses share it
+    private final int id;
+
     private final String name;
 
     private final int credits;
@@ -13,10 +16,15 @@ public class Course
 
     public Course( String code, String name, int credits, Module module )
     {
-        this.code = code;
+        this.code = CourseCodes.canonical( code );
+        this.id = CourseCodes.intern( code );
         this.name = name;
         this.credits = credits;
         this.module = module;
+        if ( module != null )
+        {
+            module.addCourse( code );
+        }
     }
 
     public String getCode()
@@ -24,6 +32,11 @@ public class Course
         return code;
     }
 
+    public int getId()
+    {
+        return id;
+    }
+
     public String getName()
     {
         return name;
@@ -39,6 +52,27 @@ public class Course
         return module;
     }
 
+    // Courses are identified by their code, compared through its interned id
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( !( o instanceof Course ) )
+        {
+            return false;
+        }
+        return id == ( (Course) o ).id;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return id;
+    }
+
     @Override
     public String toString()
     {
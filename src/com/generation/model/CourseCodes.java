@@ -0,0 +1,40 @@
+package com.generation.model;
+
+// Interns course codes to dense int ids so grades can be stored in primitive arrays and courses
+// compared by id
+public final class CourseCodes
+{
+    private static final SymbolTable codes = new SymbolTable();
+
+    private CourseCodes()
+    {
+    }
+
+    // Returns the id of the course code, assigning the next free id the first time a code is seen
+    public static int intern( String code )
+    {
+        return codes.intern( code );
+    }
+
+    // Returns the id of the course code, or -1 if the code was never interned
+    public static int idOf( String code )
+    {
+        return codes.handleOf( code );
+    }
+
+    // The shared instance of the course code
+    public static String canonical( String code )
+    {
+        return codes.canonical( code );
+    }
+
+    public static String codeOf( int id )
+    {
+        return codes.symbolOf( id );
+    }
+
+    public static int size()
+    {
+        return codes.size();
+    }
+}
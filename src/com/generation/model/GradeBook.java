@@ -0,0 +1,134 @@
+package com.generation.model;
+
+import java.util.Arrays;
+
+// Open-addressing map from course id (see CourseCodes) to a primitive double grade.
+//
+// Approximate footprint per grade on a 64-bit JVM with compressed oops:
+//   HashMap<String, Double>: 32 bytes node + 16 bytes boxed Double + ~5 bytes of table = ~53 bytes
+//   GradeBook:               4 bytes key + 8 bytes value at a load factor of at most 0.5-0.75 = ~16-24 bytes
+// The course code String itself is shared in both layouts.
+public class GradeBook
+{
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+
+    private double[] values;
+
+    private int size;
+
+    private double total;
+
+    public GradeBook()
+    {
+        this( 4 );
+    }
+
+    public GradeBook( int expectedSize )
+    {
+        int capacity = Integer.highestOneBit( Math.max( 4, expectedSize * 2 - 1 ) ) << 1;
+        keys = new int[capacity];
+        values = new double[capacity];
+        Arrays.fill( keys, EMPTY );
+    }
+
+    // Stores the grade and returns the previous one, or NaN if the course was not graded before
+    public double put( int courseId, double grade )
+    {
+        int slot = slot( courseId );
+        if ( keys[slot] == courseId )
+        {
+            double previous = values[slot];
+            values[slot] = grade;
+            total += grade - previous;
+            return previous;
+        }
+        keys[slot] = courseId;
+        values[slot] = grade;
+        total += grade;
+        if ( ++size * 4 > keys.length * 3 )
+        {
+            resize();
+        }
+        return Double.NaN;
+    }
+
+    // Returns the grade for the course, or NaN if the course is not graded
+    public double get( int courseId )
+    {
+        if ( courseId < 0 )
+        {
+            return Double.NaN;
+        }
+        int slot = slot( courseId );
+        return keys[slot] == courseId ? values[slot] : Double.NaN;
+    }
+
+    public boolean contains( int courseId )
+    {
+        return courseId >= 0 && keys[slot( courseId )] == courseId;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    // Sum of all stored grades, maintained on every put
+    public double getTotal()
+    {
+        return total;
+    }
+
+    public void forEach( GradeVisitor visitor )
+    {
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            if ( keys[i] != EMPTY )
+            {
+                visitor.visit( keys[i], values[i] );
+            }
+        }
+    }
+
+    private int slot( int courseId )
+    {
+        int mask = keys.length - 1;
+        int hash = courseId * 0x9E3779B9;
+        int slot = ( hash ^ ( hash >>> 16 ) ) & mask;
+        while ( keys[slot] != EMPTY && keys[slot] != courseId )
+        {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    private void resize()
+    {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new double[oldValues.length * 2];
+        Arrays.fill( keys, EMPTY );
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            if ( oldKeys[i] != EMPTY )
+            {
+                int slot = slot( oldKeys[i] );
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public interface GradeVisitor
+    {
+        void visit( int courseId, double grade );
+    }
+}
@@ -0,0 +1,9 @@
+package com.generation.model;
+
+// Notified by a Student every time one of its course grades is stored
+public interface GradeListener
+{
+    // previousGrade is NaN when the course had not been graded before, previousAverage when no course was
+    void gradeChanged( Student student, String courseCode, double previousGrade, double grade,
+                       double previousAverage );
+}
@@ -0,0 +1,241 @@
+package com.generation.model;
+
+import java.util.Arrays;
+
+// Running aggregate of the grades recorded for one course.
+// count, sum and sum of squares are updated in O(1); min and max come from fixed counts of the
+// grades per 0.01 of the 0-100 scale, like Ranking, so recording a grade never allocates and
+// replacing a grade never forces a rescan of the students. min and max are read at that resolution
+// and found again by a scan of the counts only after the current extreme has been removed.
+// Each instance is its own lock, so different courses are updated without contention.
+// Bulk grading records into batches (openBatch) that are applied later, so a removal may reach this
+// instance before the batched addition of its grade. While a batch is open that removal is kept as a
+// negative count until the addition cancels it; with no batch open, removing a grade that is not
+// counted is rejected, and applying the last open batch checks that no count is left negative.
+public class GradeStatistics
+{
+    // Buckets per point of grade
+    private static final int RESOLUTION = 100;
+
+    private static final int BUCKETS = 100 * RESOLUTION + 1;
+
+    // Marks a min or max that has to be found again
+    private static final int STALE = -1;
+
+    private long count;
+
+    private double sum;
+
+    private double sumOfSquares;
+
+    private final int[] buckets = new int[BUCKETS];
+
+    // Range of the buckets ever counted in, so a merge only reads those
+    private int lowest = BUCKETS;
+
+    private int highest = -1;
+
+    private int minBucket = STALE;
+
+    private int maxBucket = STALE;
+
+    // A batch counts signed deltas; the instance it is applied to tracks how many are open
+    private final boolean batch;
+
+    private int openBatches;
+
+    public GradeStatistics()
+    {
+        this( false );
+    }
+
+    private GradeStatistics( boolean batch )
+    {
+        this.batch = batch;
+    }
+
+    // An empty batch to record grade changes into and apply() to this instance later
+    public synchronized GradeStatistics openBatch()
+    {
+        openBatches++;
+        return new GradeStatistics( true );
+    }
+
+    public synchronized void add( double grade )
+    {
+        adjust( bucket( grade ), grade, 1 );
+    }
+
+    // Throws IllegalStateException if the grade is not counted and no batch could still add it
+    public synchronized void remove( double grade )
+    {
+        int bucket = bucket( grade );
+        if ( !batch && openBatches == 0 && buckets[bucket] <= 0 )
+        {
+            throw new IllegalStateException( "Grade " + grade + " was never added" );
+        }
+        adjust( bucket, grade, -1 );
+    }
+
+    // Adds everything a batch from openBatch() has counted, removals included, and closes it
+    public void apply( GradeStatistics other )
+    {
+        if ( !other.batch )
+        {
+            throw new IllegalArgumentException( "Not a batch" );
+        }
+        int[] otherBuckets;
+        int from;
+        long otherCount;
+        double otherSum;
+        double otherSumOfSquares;
+        synchronized ( other )
+        {
+            from = other.lowest;
+            otherBuckets = from <= other.highest ? Arrays.copyOfRange( other.buckets, from, other.highest + 1 )
+                : new int[0];
+            otherCount = other.count;
+            otherSum = other.sum;
+            otherSumOfSquares = other.sumOfSquares;
+        }
+        synchronized ( this )
+        {
+            count += otherCount;
+            sum += otherSum;
+            sumOfSquares += otherSumOfSquares;
+            for ( int i = 0; i < otherBuckets.length; i++ )
+            {
+                if ( otherBuckets[i] != 0 )
+                {
+                    count( from + i, otherBuckets[i] );
+                }
+            }
+            if ( --openBatches == 0 )
+            {
+                checkSettled();
+            }
+        }
+    }
+
+    // With every batch applied, each early removal has met its addition
+    private void checkSettled()
+    {
+        for ( int i = lowest; i <= highest; i++ )
+        {
+            if ( buckets[i] < 0 )
+            {
+                throw new IllegalStateException( "Grade " + (double) i / RESOLUTION + " removed more often than added" );
+            }
+        }
+    }
+
+    private void adjust( int bucket, double grade, int delta )
+    {
+        count += delta;
+        sum += delta * grade;
+        sumOfSquares += delta * grade * grade;
+        count( bucket, delta );
+    }
+
+    private void count( int bucket, int delta )
+    {
+        int total = buckets[bucket] += delta;
+        lowest = Math.min( lowest, bucket );
+        highest = Math.max( highest, bucket );
+        if ( delta > 0 && total > 0 )
+        {
+            // an extreme that is stale stays stale, since a lower bucket may have counts as well
+            minBucket = minBucket != STALE && bucket < minBucket ? bucket : minBucket;
+            maxBucket = maxBucket != STALE && bucket > maxBucket ? bucket : maxBucket;
+        }
+        else if ( total <= 0 )
+        {
+            minBucket = bucket == minBucket ? STALE : minBucket;
+            maxBucket = bucket == maxBucket ? STALE : maxBucket;
+        }
+    }
+
+    // Grades are rounded to the nearest bucket
+    private static int bucket( double grade )
+    {
+        if ( !( grade > 0 ) )
+        {
+            return 0;
+        }
+        return (int) Math.min( BUCKETS - 1, Math.round( grade * RESOLUTION ) );
+    }
+
+    // Replaces a previous grade (NaN when the course was not graded before) with a new one
+    public synchronized void replace( double previousGrade, double grade )
+    {
+        if ( !Double.isNaN( previousGrade ) )
+        {
+            remove( previousGrade );
+        }
+        add( grade );
+    }
+
+    public synchronized long getCount()
+    {
+        return count;
+    }
+
+    public synchronized double getSum()
+    {
+        return sum;
+    }
+
+    public synchronized double getSumOfSquares()
+    {
+        return sumOfSquares;
+    }
+
+    // Returns the average grade or -1 if nothing has been graded
+    public synchronized double getAverage()
+    {
+        return count > 0 ? sum / count : -1;
+    }
+
+    // Population variance of the grades, or -1 if nothing has been graded
+    public synchronized double getVariance()
+    {
+        if ( count == 0 )
+        {
+            return -1;
+        }
+        double mean = sum / count;
+        return Math.max( 0.0, sumOfSquares / count - mean * mean );
+    }
+
+    // min and max skip grades that are only there as an early removal
+    public synchronized double getMin()
+    {
+        if ( minBucket == STALE )
+        {
+            for ( int i = lowest; i <= highest && minBucket == STALE; i++ )
+            {
+                minBucket = buckets[i] > 0 ? i : STALE;
+            }
+        }
+        return minBucket != STALE ? (double) minBucket / RESOLUTION : -1;
+    }
+
+    public synchronized double getMax()
+    {
+        if ( maxBucket == STALE )
+        {
+            for ( int i = highest; i >= lowest && maxBucket == STALE; i-- )
+            {
+                maxBucket = buckets[i] > 0 ? i : STALE;
+            }
+        }
+        return maxBucket != STALE ? (double) maxBucket / RESOLUTION : -1;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "GradeStatistics{" + "count=" + count + ", average=" + getAverage() + ", min=" + getMin() + ", max="
+            + getMax() + '}';
+    }
+}
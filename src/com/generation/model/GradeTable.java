@@ -0,0 +1,363 @@
+package com.generation.model;
+
+import java.util.Arrays;
+
+// Columnar copy of every grade next to the Student objects, partitioned by course: each course
+// holds two parallel primitive arrays (student ordinal, grade) plus a small open-addressing index
+// from student ordinal to row. Course scans are straight loops over a double[] with no pointer
+// chasing or boxing. Rows are removed by moving the last row into the gap, so each partition
+// stays dense. The student ordinal is the StudentIds handle, so a replaced student keeps the
+// ordinal of its id. Course rankings and GradeSnapshot read from here.
+// Each course is split into stripes by student ordinal and each stripe is its own lock, so threads
+// grading different students of one course rarely wait for each other.
+public class GradeTable
+{
+    private static final int STRIPES = 16;
+
+    private volatile Partition[][] partitions = new Partition[64][];
+
+    public void put( int studentOrdinal, int courseId, double grade )
+    {
+        stripes( courseId )[studentOrdinal % STRIPES].put( studentOrdinal, grade );
+    }
+
+    public void remove( int studentOrdinal, int courseId )
+    {
+        Partition[] stripes = existing( courseId );
+        if ( stripes != null )
+        {
+            stripes[studentOrdinal % STRIPES].remove( studentOrdinal );
+        }
+    }
+
+    // Grade of the student in the course, or NaN if there is none
+    public double getGrade( int studentOrdinal, int courseId )
+    {
+        Partition[] stripes = existing( courseId );
+        return stripes != null && studentOrdinal >= 0 ? stripes[studentOrdinal % STRIPES].get( studentOrdinal )
+            : Double.NaN;
+    }
+
+    // Copies the rows of the course into the arrays from offset on and returns how many were copied,
+    // or -1 if the arrays are too short to hold them; the arrays may then be partly overwritten
+    public int copyRows( int courseId, int[] studentOrdinals, double[] grades, int offset )
+    {
+        Partition[] stripes = existing( courseId );
+        if ( stripes == null )
+        {
+            return 0;
+        }
+        int copied = 0;
+        for ( Partition stripe : stripes )
+        {
+            int rows = stripe.copyTo( studentOrdinals, grades, offset + copied );
+            if ( rows < 0 )
+            {
+                return -1;
+            }
+            copied += rows;
+        }
+        return copied;
+    }
+
+    public int getGradeCount( int courseId )
+    {
+        Partition[] stripes = existing( courseId );
+        int count = 0;
+        if ( stripes != null )
+        {
+            for ( Partition stripe : stripes )
+            {
+                count += stripe.size();
+            }
+        }
+        return count;
+    }
+
+    // Average grade of the course, or -1 if nothing has been graded
+    public double getAverage( int courseId )
+    {
+        Partition[] stripes = existing( courseId );
+        if ( stripes == null )
+        {
+            return -1;
+        }
+        double sum = 0;
+        int count = 0;
+        for ( Partition stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                sum += stripe.sum();
+                count += stripe.size();
+            }
+        }
+        return count > 0 ? sum / count : -1;
+    }
+
+    // Share of grades at or above passGrade, between 0 and 1, or -1 if nothing has been graded
+    public double getPassRate( int courseId, double passGrade )
+    {
+        Partition[] stripes = existing( courseId );
+        if ( stripes == null )
+        {
+            return -1;
+        }
+        int passed = 0;
+        int count = 0;
+        for ( Partition stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                passed += stripe.countAtLeast( passGrade );
+                count += stripe.size();
+            }
+        }
+        return count > 0 ? (double) passed / count : -1;
+    }
+
+    // Number of grades in each of the given number of equal-width ranges over 0-100, lowest first
+    public int[] histogram( int courseId, int bins )
+    {
+        int[] histogram = new int[bins];
+        Partition[] stripes = existing( courseId );
+        if ( stripes != null )
+        {
+            for ( Partition stripe : stripes )
+            {
+                stripe.addToHistogram( histogram );
+            }
+        }
+        return histogram;
+    }
+
+    private Partition[] existing( int courseId )
+    {
+        Partition[][] current = partitions;
+        return courseId >= 0 && courseId < current.length ? current[courseId] : null;
+    }
+
+    private Partition[] stripes( int courseId )
+    {
+        Partition[] stripes = existing( courseId );
+        if ( stripes != null )
+        {
+            return stripes;
+        }
+        synchronized ( this )
+        {
+            Partition[][] current = partitions;
+            if ( courseId >= current.length )
+            {
+                current = Arrays.copyOf( current, Math.max( courseId + 1, current.length * 2 ) );
+            }
+            else if ( current[courseId] != null )
+            {
+                return current[courseId];
+            }
+            else
+            {
+                current = current.clone();
+            }
+            stripes = new Partition[STRIPES];
+            for ( int i = 0; i < STRIPES; i++ )
+            {
+                stripes[i] = new Partition();
+            }
+            current[courseId] = stripes;
+            partitions = current;
+            return stripes;
+        }
+    }
+
+    private static final class Partition
+    {
+        private static final int NO_ROW = -1;
+
+        private int size;
+
+        private int[] students = new int[16];
+
+        private double[] grades = new double[16];
+
+        // Open addressing: student ordinal + 1 (0 marks a free slot) and the row of that student
+        private int[] indexKeys = new int[32];
+
+        private int[] indexRows = new int[32];
+
+        synchronized int size()
+        {
+            return size;
+        }
+
+        synchronized void put( int student, double grade )
+        {
+            int row = rowOf( student );
+            if ( row != NO_ROW )
+            {
+                grades[row] = grade;
+                return;
+            }
+            if ( size == grades.length )
+            {
+                students = Arrays.copyOf( students, size * 2 );
+                grades = Arrays.copyOf( grades, size * 2 );
+            }
+            students[size] = student;
+            grades[size] = grade;
+            index( student, size );
+            size++;
+        }
+
+        synchronized double get( int student )
+        {
+            int row = rowOf( student );
+            return row != NO_ROW ? grades[row] : Double.NaN;
+        }
+
+        synchronized int copyTo( int[] studentsOut, double[] gradesOut, int offset )
+        {
+            if ( offset + size > studentsOut.length || offset + size > gradesOut.length )
+            {
+                return -1;
+            }
+            System.arraycopy( students, 0, studentsOut, offset, size );
+            System.arraycopy( grades, 0, gradesOut, offset, size );
+            return size;
+        }
+
+        synchronized void remove( int student )
+        {
+            int row = rowOf( student );
+            if ( row == NO_ROW )
+            {
+                return;
+            }
+            unindex( student );
+            int last = --size;
+            if ( row != last )
+            {
+                students[row] = students[last];
+                grades[row] = grades[last];
+                index( students[row], row );
+            }
+        }
+
+        synchronized double sum()
+        {
+            double sum = 0;
+            for ( int row = 0; row < size; row++ )
+            {
+                sum += grades[row];
+            }
+            return sum;
+        }
+
+        synchronized int countAtLeast( double passGrade )
+        {
+            int passed = 0;
+            for ( int row = 0; row < size; row++ )
+            {
+                passed += grades[row] >= passGrade ? 1 : 0;
+            }
+            return passed;
+        }
+
+        synchronized void addToHistogram( int[] histogram )
+        {
+            int bins = histogram.length;
+            double scale = bins / 100.0;
+            for ( int row = 0; row < size; row++ )
+            {
+                int bin = (int) ( grades[row] * scale );
+                histogram[bin < 0 ? 0 : bin >= bins ? bins - 1 : bin]++;
+            }
+        }
+
+        private int rowOf( int student )
+        {
+            int mask = indexKeys.length - 1;
+            for ( int slot = mix( student ) & mask; ; slot = ( slot + 1 ) & mask )
+            {
+                int key = indexKeys[slot];
+                if ( key == 0 )
+                {
+                    return NO_ROW;
+                }
+                if ( key == student + 1 )
+                {
+                    return indexRows[slot];
+                }
+            }
+        }
+
+        // Inserts or updates the row of the student
+        private void index( int student, int row )
+        {
+            if ( ( size + 1 ) * 2 > indexKeys.length )
+            {
+                rehash( indexKeys.length * 2 );
+            }
+            int mask = indexKeys.length - 1;
+            int slot = mix( student ) & mask;
+            while ( indexKeys[slot] != 0 && indexKeys[slot] != student + 1 )
+            {
+                slot = ( slot + 1 ) & mask;
+            }
+            indexKeys[slot] = student + 1;
+            indexRows[slot] = row;
+        }
+
+        // Backward-shift deletion keeps the probe chains intact without tombstones
+        private void unindex( int student )
+        {
+            int mask = indexKeys.length - 1;
+            int slot = mix( student ) & mask;
+            while ( indexKeys[slot] != student + 1 )
+            {
+                slot = ( slot + 1 ) & mask;
+            }
+            int gap = slot;
+            for ( int next = ( gap + 1 ) & mask; indexKeys[next] != 0; next = ( next + 1 ) & mask )
+            {
+                int home = mix( indexKeys[next] - 1 ) & mask;
+                // move the entry back if its home slot does not lie in (gap, next]
+                if ( ( ( next - home ) & mask ) >= ( ( next - gap ) & mask ) )
+                {
+                    indexKeys[gap] = indexKeys[next];
+                    indexRows[gap] = indexRows[next];
+                    gap = next;
+                }
+            }
+            indexKeys[gap] = 0;
+        }
+
+        private void rehash( int capacity )
+        {
+            int[] oldKeys = indexKeys;
+            int[] oldRows = indexRows;
+            indexKeys = new int[capacity];
+            indexRows = new int[capacity];
+            int mask = capacity - 1;
+            for ( int i = 0; i < oldKeys.length; i++ )
+            {
+                if ( oldKeys[i] != 0 )
+                {
+                    int slot = mix( oldKeys[i] - 1 ) & mask;
+                    while ( indexKeys[slot] != 0 )
+                    {
+                        slot = ( slot + 1 ) & mask;
+                    }
+                    indexKeys[slot] = oldKeys[i];
+                    indexRows[slot] = oldRows[i];
+                }
+            }
+        }
+
+        private static int mix( int key )
+        {
+            int h = key * 0x9E3779B9;
+            return h ^ ( h >>> 16 );
+        }
+    }
+}
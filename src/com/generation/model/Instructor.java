@@ -1,7 +1,7 @@
 package com.generation.model;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 public class Instructor
@@ -12,7 +12,7 @@ public class Instructor
 
     private final List<Course> teachingCourses = new ArrayList<>();
 
-    protected Instructor( String id, String name, String email, Date birthDate )
+    protected Instructor( String id, String name, String email, LocalDate birthDate )
     {
         super( id, name, email, birthDate );
     }
@@ -1,10 +1,27 @@
 package com.generation.model;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Modules form a prerequisite graph. Adding an edge that would close a cycle is rejected, and
+// each module keeps its transitive prerequisites as a bitset over module ids, so "is X required
+// for Y" is a single bit test. A new edge only rebuilds the closures of the module it is added to
+// and of the modules that depend on it.
 public class Module
 {
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private final int id = nextId.getAndIncrement();
+
     private final String code;
 
     private final String name;
@@ -13,6 +30,15 @@ public class Module
 
     private final Map<String, Module> prerequisites = new HashMap<>();
 
+    // Modules that list this one as a direct prerequisite; guarded by the Module.class lock
+    private final List<Module> dependents = new ArrayList<>();
+
+    // Interned ids of the courses that belong to this module
+    private final Set<Integer> courseIds = ConcurrentHashMap.newKeySet();
+
+    // Replaced, never modified, when the graph changes
+    private volatile Closure closure = Closure.EMPTY;
+
     public Module( String code, String name, String description )
     {
         this.code = code;
@@ -20,11 +46,61 @@ public class Module
         this.description = description;
     }
 
+    // Throws IllegalArgumentException if the module already requires this one, directly or not
     public void addPrerequisite( Module module )
     {
-        prerequisites.put( module.code, module );
+        synchronized ( Module.class )
+        {
+            if ( module == this || module.requires( this ) )
+            {
+                throw new IllegalArgumentException(
+                    "Module " + module.code + " cannot be a prerequisite of " + code + ": it would create a cycle" );
+            }
+            if ( prerequisites.put( module.code, module ) == module )
+            {
+                return;
+            }
+            module.dependents.add( this );
+            // push the new prerequisites to this module and everything that (transitively) depends on it
+            Deque<Module> pending = new ArrayDeque<>();
+            pending.push( this );
+            while ( !pending.isEmpty() )
+            {
+                Module dependent = pending.pop();
+                Closure merged = dependent.closure.merge( module );
+                if ( merged != dependent.closure )
+                {
+                    dependent.closure = merged;
+                    for ( Module next : dependent.dependents )
+                    {
+                        pending.push( next );
+                    }
+                }
+            }
+        }
+    }
+
+    // True if other is a direct or transitive prerequisite of this module
+    public boolean requires( Module other )
+    {
+        return closure.modules.get( other.id );
     }
 
+    // Every direct and transitive prerequisite
+    public List<Module> getRequiredModules()
+    {
+        return closure.required;
+    }
+
+    void addCourse( String courseCode )
+    {
+        courseIds.add( CourseCodes.intern( courseCode ) );
+    }
+
+    Set<Integer> getCourseIds()
+    {
+        return courseIds;
+    }
 
     public String getCode()
     {
@@ -41,9 +117,10 @@ public class Module
         return description;
     }
 
+    // Direct prerequisites; use addPrerequisite to change them
     public Map<String, Module> getPrerequisites()
     {
-        return prerequisites;
+        return Collections.unmodifiableMap( prerequisites );
     }
 
     @Override
@@ -51,4 +128,47 @@ public class Module
     {
         return "Module{" + "name='" + name + '\'' + '}';
     }
+
+    private static final class Closure
+    {
+        static final Closure EMPTY = new Closure( new BitSet(), Collections.emptyList() );
+
+        private final BitSet modules;
+
+        private final List<Module> required;
+
+        Closure( BitSet modules, List<Module> required )
+        {
+            this.modules = modules;
+            this.required = required;
+        }
+
+        // This closure plus the prerequisite and everything it requires; this if nothing is new
+        Closure merge( Module prerequisite )
+        {
+            Closure inherited = prerequisite.closure;
+            BitSet missing = (BitSet) inherited.modules.clone();
+            missing.andNot( modules );
+            if ( modules.get( prerequisite.id ) && missing.isEmpty() )
+            {
+                return this;
+            }
+            BitSet merged = (BitSet) modules.clone();
+            List<Module> required = new ArrayList<>( this.required );
+            if ( !merged.get( prerequisite.id ) )
+            {
+                merged.set( prerequisite.id );
+                required.add( prerequisite );
+            }
+            for ( Module module : inherited.required )
+            {
+                if ( missing.get( module.id ) )
+                {
+                    required.add( module );
+                }
+            }
+            merged.or( missing );
+            return new Closure( merged, Collections.unmodifiableList( required ) );
+        }
+    }
 }
@@ -1,23 +1,32 @@
 package com.generation.model;
 
-import java.util.Date;
+import java.time.LocalDate;
 
 abstract public class Person
 {
+    // Epoch day of a person whose birth date is not known
+    public static final int NO_BIRTH_DATE = Integer.MIN_VALUE;
+
     private final String id;
 
     private final String name;
 
     private final String email;
 
-    private final Date birthDate;
+    // Days since 1970-01-01 as LocalDate.toEpochDay(), or NO_BIRTH_DATE
+    private final int birthEpochDay;
 
-    protected Person( String id, String name, String email, Date birthDate )
+    protected Person( String id, String name, String email, int birthEpochDay )
     {
         this.id = id;
         this.name = name;
         this.email = email;
-        this.birthDate = birthDate;
+        this.birthEpochDay = birthEpochDay;
+    }
+
+    protected Person( String id, String name, String email, LocalDate birthDate )
+    {
+        this( id, name, email, birthDate != null ? (int) birthDate.toEpochDay() : NO_BIRTH_DATE );
     }
 
     public String getId()
@@ -35,14 +44,25 @@ abstract public class Person
         return email;
     }
 
-    public Date getBirthDate()
+    public boolean hasBirthDate()
+    {
+        return birthEpochDay != NO_BIRTH_DATE;
+    }
+
+    public int getBirthEpochDay()
+    {
+        return birthEpochDay;
+    }
+
+    // Null when the birth date is not known
+    public LocalDate getBirthDate()
     {
-        return birthDate;
+        return hasBirthDate() ? LocalDate.ofEpochDay( birthEpochDay ) : null;
     }
 
     @Override
     public String toString()
     {
-        return id + '\'' + ", name='" + name + '\'' + ", email='" + email + '\'' + ", birthDate=" + birthDate;
+        return id + '\'' + ", name='" + name + '\'' + ", email='" + email + '\'' + ", birthDate=" + getBirthDate();
     }
 }
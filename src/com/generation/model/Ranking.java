@@ -0,0 +1,488 @@
+package com.generation.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Order statistics over one score per student (a course grade or a student's average) on the
+// 0-100 scale, at a resolution of 0.01. Scores are counted per bucket in Fenwick trees over the
+// 10,001 buckets, so rank, percentile and histogram are O(log buckets), and each bucket lists the
+// handles of its students, so top(n) walks down from the highest bucket and reads about n students
+// plus one tree descent per bucket it visits. The exact scores stay where they are kept anyway and
+// are read through Scores.
+// Updates lock one stripe, picked by the student's handle, and queries add the stripes up.
+public class Ranking
+{
+    public static final double MAX_SCORE = 100.0;
+
+    // Buckets per point of score
+    private static final int RESOLUTION = 100;
+
+    private static final int BUCKETS = (int) MAX_SCORE * RESOLUTION + 1;
+
+    // Buckets top() checks one by one before it searches the tree for the next non-empty one
+    private static final int PROBE = 16;
+
+    // Where the ranked scores are kept
+    public interface Scores
+    {
+        // Score of the student, or NaN if the student is not ranked
+        double scoreOf( String studentId );
+
+        // Student with the handle, or null if there is none
+        Student studentOf( int handle );
+    }
+
+    private final Scores scores;
+
+    private final Stripe[] stripes;
+
+    public Ranking( Scores scores, int stripes )
+    {
+        this.scores = scores;
+        this.stripes = new Stripe[stripes];
+        for ( int i = 0; i < stripes; i++ )
+        {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    // Moves the student from its previous score to the new one; NaN on either side means not ranked.
+    // Callers pass the exact previous score they added, so it lands in the same bucket.
+    public void replace( Student student, double previousScore, double score )
+    {
+        int from = Double.isNaN( previousScore ) ? -1 : bucket( previousScore );
+        int to = Double.isNaN( score ) ? -1 : bucket( score );
+        int handle = student.getHandle();
+        Stripe stripe = stripes[handle % stripes.length];
+        synchronized ( stripe )
+        {
+            if ( from >= 0 )
+            {
+                stripe.add( from, handle, -1 );
+            }
+            if ( to >= 0 )
+            {
+                stripe.add( to, handle, 1 );
+            }
+        }
+    }
+
+    // Applies the moves recorded in the batch, taking each stripe's lock once
+    public void apply( Batch batch )
+    {
+        if ( batch.isEmpty() )
+        {
+            return;
+        }
+        for ( int s = 0; s < stripes.length; s++ )
+        {
+            Stripe stripe = stripes[s];
+            synchronized ( stripe )
+            {
+                for ( int i = 0; i < batch.size; i++ )
+                {
+                    int handle = batch.handles[i];
+                    if ( handle % stripes.length != s )
+                    {
+                        continue;
+                    }
+                    if ( batch.from[i] >= 0 )
+                    {
+                        stripe.add( batch.from[i], handle, -1 );
+                    }
+                    if ( batch.to[i] >= 0 )
+                    {
+                        stripe.add( batch.to[i], handle, 1 );
+                    }
+                }
+            }
+        }
+    }
+
+    public void add( Student student, double score )
+    {
+        replace( student, Double.NaN, score );
+    }
+
+    public void remove( Student student, double score )
+    {
+        replace( student, score, Double.NaN );
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    // Score of the student, or NaN if the student is not ranked
+    public double getScore( String studentId )
+    {
+        return scores.scoreOf( studentId );
+    }
+
+    // Up to n students with the highest scores, best first; equal scores are ordered by id.
+    // One descent of the summed trees finds the bucket of the n-th best score, then each stripe hands
+    // over its buckets from there up, whole, until they hold n students, so the top n of all stripes
+    // are among them; only the buckets of the merged list that still reach the top n are read.
+    public List<Student> top( int n )
+    {
+        int floor = bucketOfRank( n );
+        long[] taken = collect( n, floor );
+        if ( taken.length < n && floor > 0 )
+        {
+            // scores moved below the floor between the descent and the collection
+            taken = collect( n, 0 );
+        }
+        int from = taken.length;
+        while ( from > 0 && taken.length - from < n )
+        {
+            int bucket = (int) ( taken[from - 1] >>> 32 );
+            while ( from > 0 && (int) ( taken[from - 1] >>> 32 ) == bucket )
+            {
+                from--;
+            }
+        }
+        // scores are read outside the stripe locks, since they may take the student's lock
+        List<Candidate> candidates = new ArrayList<>( taken.length - from );
+        for ( int i = from; i < taken.length; i++ )
+        {
+            Student student = scores.studentOf( (int) taken[i] );
+            double score = student != null ? scores.scoreOf( student.getId() ) : Double.NaN;
+            if ( !Double.isNaN( score ) )
+            {
+                candidates.add( new Candidate( student, score ) );
+            }
+        }
+        candidates.sort( null );
+        List<Student> top = new ArrayList<>( Math.min( n, candidates.size() ) );
+        for ( int i = 0; i < n && i < candidates.size(); i++ )
+        {
+            top.add( candidates.get( i ).student );
+        }
+        return top;
+    }
+
+    // (bucket << 32 | handle) of the students each stripe holds in its highest buckets, down to floor,
+    // sorted; bucket in the high bits, so the highest buckets sort last
+    private long[] collect( int n, int floor )
+    {
+        long[][] parts = new long[stripes.length][];
+        int total = 0;
+        for ( int s = 0; s < stripes.length; s++ )
+        {
+            synchronized ( stripes[s] )
+            {
+                parts[s] = stripes[s].top( n, floor );
+            }
+            total += parts[s].length;
+        }
+        long[] taken = new long[total];
+        int next = 0;
+        for ( long[] part : parts )
+        {
+            System.arraycopy( part, 0, taken, next, part.length );
+            next += part.length;
+        }
+        Arrays.sort( taken );
+        return taken;
+    }
+
+    // Bucket of the n-th highest score, or 0 if fewer are ranked; a descent of the trees added up,
+    // which only locks one stripe at a time, so it is a hint for collect() rather than exact
+    private int bucketOfRank( int n )
+    {
+        int size = size();
+        if ( n <= 0 || size < n )
+        {
+            return 0;
+        }
+        // the n-th highest is the (size - n + 1)-th lowest
+        int remaining = size - n + 1;
+        int position = 0;
+        for ( int step = Integer.highestOneBit( BUCKETS ); step > 0; step >>= 1 )
+        {
+            int next = position + step;
+            if ( next > BUCKETS )
+            {
+                continue;
+            }
+            int count = 0;
+            for ( Stripe stripe : stripes )
+            {
+                synchronized ( stripe )
+                {
+                    count += stripe.tree[next];
+                }
+            }
+            if ( count < remaining )
+            {
+                position = next;
+                remaining -= count;
+            }
+        }
+        return Math.min( position, BUCKETS - 1 );
+    }
+
+    // 1 + the number of students with a higher score, or -1 if the student is not ranked
+    public int rankOf( String studentId )
+    {
+        double score = scores.scoreOf( studentId );
+        return Double.isNaN( score ) ? -1 : countFrom( bucket( score ) + 1 ) + 1;
+    }
+
+    // Percentage of the ranked students with a lower score, or -1 if the student is not ranked
+    public double percentileOf( String studentId )
+    {
+        double score = scores.scoreOf( studentId );
+        if ( Double.isNaN( score ) )
+        {
+            return -1;
+        }
+        int bucket = bucket( score );
+        int below = 0;
+        int size = 0;
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                below += stripe.prefix( bucket );
+                size += stripe.size;
+            }
+        }
+        return size > 0 ? 100.0 * below / size : 0;
+    }
+
+    // Number of scores in each of the given number of equal-width ranges over 0-100, lowest first
+    public int[] histogram( int bins )
+    {
+        int[] histogram = new int[bins];
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                int previous = 0;
+                for ( int i = 0; i < bins; i++ )
+                {
+                    // bucket one past the last bucket of bin i; the top bin also takes a score of exactly 100
+                    int end = i == bins - 1 ? BUCKETS : (int) ( (long) ( BUCKETS - 1 ) * ( i + 1 ) / bins );
+                    int upTo = stripe.prefix( end );
+                    histogram[i] += upTo - previous;
+                    previous = upTo;
+                }
+            }
+        }
+        return histogram;
+    }
+
+    // Number of scores in buckets from the given one upwards
+    private int countFrom( int bucket )
+    {
+        int count = 0;
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                count += stripe.size - stripe.prefix( bucket );
+            }
+        }
+        return count;
+    }
+
+    // Scores are rounded to the nearest bucket
+    private static int bucket( double score )
+    {
+        if ( !( score > 0 ) )
+        {
+            return 0;
+        }
+        return (int) Math.min( BUCKETS - 1, Math.round( score * RESOLUTION ) );
+    }
+
+    // Fenwick tree, 1-based, over the score buckets, and the handles in each bucket; guarded by its
+    // own monitor
+    private static final class Stripe
+    {
+        private final int[] tree = new int[BUCKETS + 1];
+
+        // Per bucket, (handle << 32 | count) entries; a count goes below zero only while batches
+        // are applied out of order, like the tree counts, and the entry is dropped when it is 0
+        private final long[][] members = new long[BUCKETS][];
+
+        private final int[] memberCounts = new int[BUCKETS];
+
+        private int size;
+
+        void add( int bucket, int handle, int delta )
+        {
+            size += delta;
+            for ( int i = bucket + 1; i <= BUCKETS; i += i & -i )
+            {
+                tree[i] += delta;
+            }
+            long[] entries = members[bucket];
+            int count = memberCounts[bucket];
+            for ( int i = 0; i < count; i++ )
+            {
+                if ( (int) ( entries[i] >> 32 ) == handle )
+                {
+                    int weight = (int) entries[i] + delta;
+                    if ( weight == 0 )
+                    {
+                        entries[i] = entries[count - 1];
+                        memberCounts[bucket] = count - 1;
+                    }
+                    else
+                    {
+                        entries[i] = entry( handle, weight );
+                    }
+                    return;
+                }
+            }
+            if ( entries == null || count == entries.length )
+            {
+                entries = members[bucket] = entries == null ? new long[4] : Arrays.copyOf( entries, count * 2 );
+            }
+            entries[count] = entry( handle, delta );
+            memberCounts[bucket] = count + 1;
+        }
+
+        // (bucket << 32 | handle) of the students in the highest buckets, whole buckets until at
+        // least n students are taken or none are left from floor up
+        long[] top( int n, int floor )
+        {
+            long[] taken = new long[Math.max( 0, Math.min( n, size ) ) + 16];
+            int count = 0;
+            // scores in the buckets below end, the sum of the counts of the buckets not visited yet
+            int remaining = size;
+            int end = BUCKETS;
+            while ( count < n && remaining > 0 )
+            {
+                int bucket = highestBucketBelow( end, remaining );
+                if ( bucket < floor )
+                {
+                    break;
+                }
+                long[] entries = members[bucket];
+                for ( int i = 0; i < memberCounts[bucket]; i++ )
+                {
+                    int weight = (int) entries[i];
+                    remaining -= weight;
+                    if ( weight > 0 )
+                    {
+                        if ( count == taken.length )
+                        {
+                            taken = Arrays.copyOf( taken, count * 2 );
+                        }
+                        taken[count++] = (long) bucket << 32 | entries[i] >>> 32;
+                    }
+                }
+                end = bucket;
+            }
+            return Arrays.copyOf( taken, count );
+        }
+
+        // Highest bucket below end with members, given the number of scores below end. Tries the
+        // buckets right below end first, since dense scores are found there, then descends the tree
+        // to the bucket of the last of those scores.
+        private int highestBucketBelow( int end, int remaining )
+        {
+            for ( int bucket = end - 1; bucket >= 0 && bucket >= end - PROBE; bucket-- )
+            {
+                if ( memberCounts[bucket] > 0 )
+                {
+                    return bucket;
+                }
+            }
+            int position = 0;
+            for ( int step = Integer.highestOneBit( BUCKETS ); step > 0; step >>= 1 )
+            {
+                int next = position + step;
+                if ( next <= BUCKETS && tree[next] < remaining )
+                {
+                    position = next;
+                    remaining -= tree[next];
+                }
+            }
+            return Math.min( position, end - 1 );
+        }
+
+        private static long entry( int handle, int weight )
+        {
+            return (long) handle << 32 | ( weight & 0xFFFFFFFFL );
+        }
+
+        // Number of scores in buckets [0, end)
+        int prefix( int end )
+        {
+            int sum = 0;
+            for ( int i = end; i > 0; i -= i & -i )
+            {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+
+    // Moves recorded by one thread without locking, for apply(); bucket counts add up in any order
+    public static final class Batch
+    {
+        private int size;
+
+        private int[] handles = new int[64];
+
+        private int[] from = new int[64];
+
+        private int[] to = new int[64];
+
+        // Same arguments as Ranking.replace
+        public void replace( Student student, double previousScore, double score )
+        {
+            if ( size == handles.length )
+            {
+                handles = Arrays.copyOf( handles, size * 2 );
+                from = Arrays.copyOf( from, size * 2 );
+                to = Arrays.copyOf( to, size * 2 );
+            }
+            handles[size] = student.getHandle();
+            from[size] = Double.isNaN( previousScore ) ? -1 : bucket( previousScore );
+            to[size] = Double.isNaN( score ) ? -1 : bucket( score );
+            size++;
+        }
+
+        public boolean isEmpty()
+        {
+            return size == 0;
+        }
+    }
+
+    // Highest score first, then by student id
+    private static final class Candidate
+        implements Comparable<Candidate>
+    {
+        private final Student student;
+
+        private final double score;
+
+        Candidate( Student student, double score )
+        {
+            this.student = student;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo( Candidate other )
+        {
+            int byScore = Double.compare( other.score, score );
+            return byScore != 0 ? byScore : student.getId().compareTo( other.student.getId() );
+        }
+    }
+}
@@ -1,81 +1,199 @@
 package com.generation.model;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
+// All mutable state is guarded by the student's own monitor, so different students
+// can be enrolled and graded concurrently without contending on a shared lock.
 public class Student
         extends Person
         implements Evaluation
 {
-    private double average;
+    // Average over the graded courses, refreshed by gradeInCourse so readers never re-sum the grades
+    private volatile double average;
 
-    private final List<Course> courses = new ArrayList<>();
+    // StudentIds handle of the id
+    private final int handle;
 
-    private final Map<String, Course> approvedCourses = new HashMap<>();
+    // Enrolled courses in enrollment order, and the same courses indexed by course id so membership is
+    // an array load instead of hashing and comparing the code; both add and remove in O(1)
+    private final Set<Course> courses = new LinkedHashSet<>();
 
-    // Map to store grades per course
-    private final Map<String, Double> courseGrades = new HashMap<>();
+    private Course[] coursesById = new Course[0];
+
+    // Pass/fail state of the enrolled courses, keyed by the interned course id and updated on
+    // enrollment and grading, so passed-course queries never walk the grades
+    private final BitSet passedCourseIds = new BitSet();
+
+    private int passedCourseCount;
+
+    private int passedCredits;
+
+    // Sum of Course.getCredits() over the enrolled courses, kept up to date on enroll and drop
+    private int enrolledCredits;
+
+    // Rebuilt on the next getPassedCourses() after the passed set changes
+    private List<Course> passedCourses = Collections.emptyList();
+
+    private boolean passedCoursesStale;
+
+    // Grades per course, keyed by the interned course id
+    private final GradeBook courseGrades = new GradeBook();
 
     // Passing grade constant
     private static final double PASSING_GRADE = 50.0;
 
-    public Student( String id, String name, String email, Date birthDate )
+    private GradeListener gradeListener;
+
+    // birthEpochDay as LocalDate.toEpochDay(), or Person.NO_BIRTH_DATE
+    public Student( String id, String name, String email, int birthEpochDay )
     {
-        super( id, name, email, birthDate );
+        // every Student with this id shares one id instance
+        super( StudentIds.canonical( id ), name, email, birthEpochDay );
+        this.handle = StudentIds.intern( id );
     }
 
-    public void enrollToCourse( Course course )
+    public Student( String id, String name, String email, LocalDate birthDate )
     {
+        super( StudentIds.canonical( id ), name, email, birthDate );
+        this.handle = StudentIds.intern( id );
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    public synchronized void enrollToCourse( Course course )
+    {
+        int courseId = course.getId();
         // only if courses is not found in courses
-        if(!courses.contains(course)) {
-            // add the course to courses ArrayList
-            courses.add(course);
-            // put the course as an approved course is in ApprovedCourses
-            registerApprovedCourse(course);
+        if (courseId >= coursesById.length) {
+            coursesById = Arrays.copyOf(coursesById, Math.max(courseId + 1, CourseCodes.size()));
+        } else if (coursesById[courseId] != null) {
+            return;
         }
+        coursesById[courseId] = course;
+        courses.add(course);
+        enrolledCredits += course.getCredits();
+        // a grade recorded before the enrollment counts as soon as the student is enrolled
+        updatePassed(course, courseId, courseGrades.get(courseId));
     }
 
-    public void registerApprovedCourse( Course course )
+    // Leaves the course; returns false if the student was not enrolled. The grade, if any, is kept.
+    public synchronized boolean dropCourse( Course course )
     {
-        approvedCourses.put( course.getCode(), course );
+        int courseId = course.getId();
+        if (courseId >= coursesById.length || coursesById[courseId] == null) {
+            return false;
+        }
+        courses.remove(coursesById[courseId]);
+        enrolledCredits -= coursesById[courseId].getCredits();
+        coursesById[courseId] = null;
+        updatePassed(course, courseId, Double.NaN);
+        return true;
     }
 
+    // True when the student is enrolled in the course (whether or not it has been passed yet)
     public boolean isCourseApproved( String courseCode )
     {
-        // approvedCourses as a HashMap is stored in key value pairs
-        // return true or false when course approved
-        return approvedCourses.containsKey(courseCode);
+        return isAttendingCourse(CourseCodes.idOf(courseCode));
     }
 
     // CHALLENGE: Returns all courses where student passed (grade >= 50)
+    // The course argument is not used; kept for existing callers, see getPassedCourses()
     public List<Course> findPassedCourses( Course course )
     {
-        List<Course> passedCourses = new ArrayList<>();
-
-        // Loop through all graded courses
-        for (String courseCode : courseGrades.keySet()) {
-            double grade = courseGrades.get(courseCode);
+        return getPassedCourses();
+    }
 
-            // If grade is passing (>= 50), add the course to passedCourses
-            if (grade >= PASSING_GRADE && approvedCourses.containsKey(courseCode)) {
-                passedCourses.add(approvedCourses.get(courseCode));
+    // Enrolled courses with a passing grade, in enrollment order. The returned list is read-only and
+    // is shared between calls until the passed set changes.
+    public synchronized List<Course> getPassedCourses()
+    {
+        if (passedCoursesStale) {
+            List<Course> passed = new ArrayList<>(passedCourseCount);
+            for (Course course : courses) {
+                if (passedCourseIds.get(course.getId())) {
+                    passed.add(course);
+                }
             }
+            passedCourses = Collections.unmodifiableList(passed);
+            passedCoursesStale = false;
         }
-
         return passedCourses;
     }
 
-    public boolean isAttendingCourse(String courseCode) {
-        // If we use courses to check, what will the logic be?
-        for (Course course : courses) {
-            if (course.getCode().equals(courseCode)) {
-                return true;
+    public synchronized boolean hasPassedCourse(String courseCode) {
+        int courseId = CourseCodes.idOf(courseCode);
+        return courseId >= 0 && passedCourseIds.get(courseId);
+    }
+
+    public synchronized int getPassedCourseCount() {
+        return passedCourseCount;
+    }
+
+    // Sum of Course.getCredits() over the passed courses
+    public synchronized int getPassedCredits() {
+        return passedCredits;
+    }
+
+    // Sum of Course.getCredits() over the enrolled courses
+    public synchronized int getEnrolledCredits() {
+        return enrolledCredits;
+    }
+
+    // Caller holds the lock; grade is NaN when the course is not graded
+    private void updatePassed(Course course, int courseId, double grade) {
+        boolean passed = grade >= PASSING_GRADE;
+        if (passed == passedCourseIds.get(courseId)) {
+            return;
+        }
+        passedCourseIds.set(courseId, passed);
+        passedCourseCount += passed ? 1 : -1;
+        passedCredits += passed ? course.getCredits() : -course.getCredits();
+        passedCoursesStale = true;
+    }
+
+    // Null if the student may enroll in the course, otherwise a required module the student has not
+    // completed yet. A module is completed once every course in it has a passing grade.
+    public synchronized Module findMissingPrerequisite(Course course) {
+        Module module = course.getModule();
+        if (module == null) {
+            return null;
+        }
+        for (Module required : module.getRequiredModules()) {
+            for (int courseId : required.getCourseIds()) {
+                if (!(courseGrades.get(courseId) >= PASSING_GRADE)) {
+                    return required;
+                }
             }
         }
-        return false;
+        return null;
+    }
+
+    public boolean isEligibleFor(Course course) {
+        return findMissingPrerequisite(course) == null;
+    }
+
+    public boolean isAttendingCourse(String courseCode) {
+        return isAttendingCourse(CourseCodes.idOf(courseCode));
+    }
+
+    // Same as isAttendingCourse(String) for a course id from CourseCodes; -1 is never attended
+    public synchronized boolean isAttendingCourse(int courseId) {
+        return courseId >= 0 && courseId < coursesById.length && coursesById[courseId] != null;
+    }
+
+    // Returns the enrolled course with the given code, or null if the student is not enrolled
+    public synchronized Course getCourse(String courseCode) {
+        int courseId = CourseCodes.idOf(courseCode);
+        return courseId >= 0 && courseId < coursesById.length ? coursesById[courseId] : null;
     }
 
     @Override
@@ -85,37 +203,62 @@ public class Student
     }
 
     // Grade a specific course (replaces old grade if course is graded again)
-    public void gradeInCourse(String courseCode, double grade) {
-        courseGrades.put(courseCode, grade);
+    // Returns the previous grade, or NaN if the course was not graded before
+    public synchronized double gradeInCourse(String courseCode, double grade) {
+        int courseId = CourseCodes.intern(courseCode);
+        double previousAverage = courseGrades.size() > 0 ? average : Double.NaN;
+        double previousGrade = courseGrades.put(courseId, grade);
+        // the grade book keeps a running total, so a replaced grade only moves it by the difference
+        average = courseGrades.getTotal() / courseGrades.size();
+        Course course = courseId < coursesById.length ? coursesById[courseId] : null;
+        if (course != null) {
+            updatePassed(course, courseId, grade);
+        }
+        if (gradeListener != null) {
+            gradeListener.gradeChanged(this, courseCode, previousGrade, grade, previousAverage);
+        }
+        return previousGrade;
     }
 
     // Get grade for a specific course
     public Double getGradeForCourse(String courseCode) {
-        return courseGrades.get(courseCode);
+        double grade = getGrade(courseCode);
+        return Double.isNaN(grade) ? null : grade;
+    }
+
+    // Get grade for a specific course without boxing, NaN if the course is not graded
+    public synchronized double getGrade(String courseCode) {
+        return courseGrades.get(CourseCodes.idOf(courseCode));
+    }
+
+    // Visit every graded course as (course id, grade) pairs
+    public synchronized void forEachGrade(GradeBook.GradeVisitor visitor) {
+        courseGrades.forEach(visitor);
+    }
+
+    public synchronized int getGradedCourseCount() {
+        return courseGrades.size();
     }
 
     // Calculate total grade from all unique courses
-    public double getTotalGrade() {
-        double total = 0;
-        for (Double grade : courseGrades.values()) {
-            total += grade;
-        }
-        return total;
+    public synchronized double getTotalGrade() {
+        return courseGrades.getTotal();
     }
 
-    // Calculate average grade across all courses
+    // Average grade across all courses, 0 if nothing is graded yet
     public double getAverageGrade() {
-        if (courseGrades.isEmpty()) {
-            return 0.0;
-        }
-        return getTotalGrade() / courseGrades.size();
+        return average;
+    }
+
+    public synchronized void setGradeListener(GradeListener gradeListener) {
+        this.gradeListener = gradeListener;
     }
 
     @Override
-    public List<Course> getApprovedCourses()
+    public synchronized List<Course> getApprovedCourses()
     {
-        // return the courses ArrayList
-        return courses;
+        // return a snapshot of the courses in enrollment order so callers can iterate without holding the lock
+        return new ArrayList<>(courses);
     }
 
     @Override
@@ -0,0 +1,40 @@
+package com.generation.model;
+
+// Interns student ids to dense int handles. A replaced student keeps the handle of its id, so
+// columnar and per-course indexes can key students by handle across replacements.
+public final class StudentIds
+{
+    private static final SymbolTable ids = new SymbolTable();
+
+    private StudentIds()
+    {
+    }
+
+    // Returns the handle of the student id, assigning the next free handle the first time an id is seen
+    public static int intern( String id )
+    {
+        return ids.intern( id );
+    }
+
+    // Returns the handle of the student id, or -1 if the id was never interned
+    public static int handleOf( String id )
+    {
+        return ids.handleOf( id );
+    }
+
+    // The shared instance of the student id
+    public static String canonical( String id )
+    {
+        return ids.canonical( id );
+    }
+
+    public static String idOf( int handle )
+    {
+        return ids.symbolOf( handle );
+    }
+
+    public static int size()
+    {
+        return ids.size();
+    }
+}
@@ -0,0 +1,71 @@
+package com.generation.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Canonical instances of a set of strings, each with a dense int handle assigned in first-seen
+// order. Once a string is interned every holder can share the canonical instance, so equal symbols
+// are the same object and compare by identity, and indexes can be plain arrays keyed by handle.
+// Lookups are lock-free; new symbols are added under the table's lock.
+public final class SymbolTable
+{
+    private final Map<String, Integer> handles = new ConcurrentHashMap<>();
+
+    private volatile String[] symbols = new String[64];
+
+    private int size;
+
+    // Returns the handle of the symbol, assigning the next free handle the first time it is seen
+    public int intern( String symbol )
+    {
+        Integer handle = handles.get( symbol );
+        if ( handle != null )
+        {
+            return handle;
+        }
+        synchronized ( this )
+        {
+            handle = handles.get( symbol );
+            if ( handle == null )
+            {
+                String[] current = symbols;
+                if ( size == current.length )
+                {
+                    current = Arrays.copyOf( current, size * 2 );
+                }
+                current[size] = symbol;
+                // publish the array before the handle, so symbolOf never sees a handle it cannot resolve
+                symbols = current;
+                handle = size++;
+                handles.put( symbol, handle );
+            }
+            return handle;
+        }
+    }
+
+    // Returns the handle of the symbol, or -1 if it was never interned
+    public int handleOf( String symbol )
+    {
+        Integer handle = handles.get( symbol );
+        return handle != null ? handle : -1;
+    }
+
+    // The canonical instance of the symbol, interning it if needed
+    public String canonical( String symbol )
+    {
+        // intern first: it may grow the array, and symbols[intern( symbol )] would read the old one
+        int handle = intern( symbol );
+        return symbols[handle];
+    }
+
+    public String symbolOf( int handle )
+    {
+        return symbols[handle];
+    }
+
+    public int size()
+    {
+        return handles.size();
+    }
+}
@@ -1,22 +1,44 @@
 package com.generation.service;
 
+import com.generation.metrics.Metrics;
+import com.generation.metrics.Timer;
 import com.generation.model.Course;
+import com.generation.model.CourseCodes;
 import com.generation.model.Module;
 import com.generation.model.Student;
+import com.generation.storage.Journal;
+import com.generation.utils.SummaryRenderer;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 public class CourseService
 {
-    private final Map<String, Course> courses = new HashMap<>();
+    private static final Timer ENROLL_STUDENT = Metrics.timer( "CourseService.enrollStudent" );
 
-    private final Map<String, List<Student>> enrolledStudents = new HashMap<>();
+    private static final Timer GET_COURSE = Metrics.timer( "CourseService.getCourse" );
+
+    private final Map<String, Course> courses = new ConcurrentHashMap<>();
+
+    // Rosters, shared with StudentService when both are built over the same index
+    private final EnrollmentIndex enrollments;
+
+    // Receives every enrollment, see StorageEngine
+    private volatile Journal journal = Journal.NONE;
 
     public CourseService()
     {
+        this( new EnrollmentIndex() );
+    }
+
+    public CourseService( EnrollmentIndex enrollments )
+    {
+        this.enrollments = enrollments;
         Module module = new Module( "INTRO-CS", "Introduction to Computer Science",
                                     "Introductory module for the generation technical programs" );
         registerCourse( new Course( "INTRO-CS-1", "Introduction to Computer Science", 9, module ) );
@@ -42,57 +64,111 @@ public class CourseService
 
     public void registerCourse( Course course )
     {
+        CourseCodes.intern( course.getCode() );
         courses.put( course.getCode(), course );
     }
 
+    // Dense int id of a registered course code, or -1 if the code is unknown
+    public int getCourseId( String code )
+    {
+        return CourseCodes.idOf( code );
+    }
+
     public Course getCourse( String code )
     {
-        if ( courses.containsKey( code ) )
+        long start = GET_COURSE.start();
+        try
         {
             return courses.get( code );
         }
-        return null;
+        finally
+        {
+            GET_COURSE.stop( start );
+        }
     }
 
-    public void enrollStudent( String courseId, Student student )
+    public Collection<Course> getCourses()
     {
-        if ( !enrolledStudents.containsKey( courseId ) )
-        {
-            enrolledStudents.put( courseId, new ArrayList<>() );
-        }
-        enrolledStudents.get( courseId ).add( student );
+        return Collections.unmodifiableCollection( courses.values() );
     }
 
-    public void showEnrolledStudents( String courseId )
+    // Enrolls the student on both sides of the enrollment index; enrolling twice has no effect
+    public void enrollStudent( String courseId, Student student )
     {
-        if ( enrolledStudents.containsKey( courseId ) )
+        long start = ENROLL_STUDENT.start();
+        try
         {
-            List<Student> students = enrolledStudents.get( courseId );
-            for ( Student student : students )
+            Course course = courses.get( courseId );
+            if ( course == null )
             {
-                System.out.println( student );
+                throw new IllegalArgumentException( "Unknown course " + courseId );
             }
+            if ( enrollments.enroll( student, course ) )
+            {
+                journal.courseEnrollment( courseId, student.getId() );
+            }
+        }
+        finally
+        {
+            ENROLL_STUDENT.stop( start );
         }
     }
 
-
-    public void showSummary()
+    // Adds the student to the roster without journaling it; used when loading stored state
+    public void restoreEnrollment( String courseId, Student student )
     {
-        System.out.println( "Available Courses:" );
-        for ( String key : courses.keySet() )
+        Course course = courses.get( courseId );
+        if ( course != null )
         {
-            Course course = courses.get( key );
-            System.out.println( course );
+            enrollments.restore( student, course );
         }
-        System.out.println( "Enrolled Students" );
-        for ( String key : enrolledStudents.keySet() )
+    }
+
+    // Visits every (course code, enrolled student) pair
+    public void forEachEnrollment( BiConsumer<String, Student> visitor )
+    {
+        enrollments.forEach( visitor );
+    }
+
+    public Set<String> getEnrolledCourseCodes()
+    {
+        return enrollments.getCourseCodes();
+    }
+
+    // Snapshot of the students enrolled in the course
+    public List<Student> getEnrolledStudents( String courseId )
+    {
+        return enrollments.getRoster( courseId );
+    }
+
+    public int getEnrolledCount( String courseId )
+    {
+        return enrollments.getEnrolledCount( courseId );
+    }
+
+    public EnrollmentIndex getEnrollments()
+    {
+        return enrollments;
+    }
+
+    public void setJournal( Journal journal )
+    {
+        this.journal = journal;
+    }
+
+    public void showEnrolledStudents( String courseId )
+    {
+        for ( Student student : enrollments.getRoster( courseId ) )
         {
-            List<Student> students = enrolledStudents.get( key );
-            System.out.println( "Students on Course " + key + ": " );
-            for ( Student student : students )
-            {
-                System.out.println( student );
-            }
+            System.out.println( student );
         }
     }
+
+
+    public void showSummary()
+    {
+        SummaryRenderer renderer = SummaryRenderer.forOutputStream( System.out );
+        renderer.renderCourses( this );
+        renderer.flush();
+    }
 }
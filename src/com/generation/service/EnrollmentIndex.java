@@ -0,0 +1,192 @@
+package com.generation.service;
+
+import com.generation.model.Course;
+import com.generation.model.CourseCodes;
+import com.generation.model.Module;
+import com.generation.model.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// The one place enrollments are written. The course side is a roster per course keyed by student
+// id, so enrolling twice is a no-op and add, remove, contains and roster size are all O(1). Rosters
+// sit in an array indexed by course id, and students carry the shared instance of their id, so
+// roster lookups compare ids by identity. The student side is the student's own course index,
+// which is only updated through this index.
+// Share one instance between StudentService and CourseService so both read the same rosters.
+public class EnrollmentIndex
+{
+    // Copy-on-write when a course gets its first enrollment; null for courses without one
+    @SuppressWarnings( { "rawtypes", "unchecked" } )
+    private volatile Map<String, Student>[] rosters = new Map[64];
+
+    // Enrolls the student on both sides; returns false if the student was already on the roster.
+    // Throws IllegalArgumentException if the student has not completed the course's prerequisites.
+    // Grades change under the student's lock, so holding it makes the check and the enrollment atomic.
+    public boolean enroll( Student student, Course course )
+    {
+        synchronized ( student )
+        {
+            Module missing = student.findMissingPrerequisite( course );
+            if ( missing != null )
+            {
+                throw new IllegalArgumentException( "Student " + student.getId() + " must complete module "
+                                                        + missing.getCode() + " before enrolling in " + course.getCode() );
+            }
+            return restore( student, course );
+        }
+    }
+
+    // Enrolls without checking prerequisites; used when loading stored state
+    public boolean restore( Student student, Course course )
+    {
+        synchronized ( student )
+        {
+            Student previous = roster( course.getId() ).put( student.getId(), student );
+            student.enrollToCourse( course );
+            return previous == null;
+        }
+    }
+
+    // Takes the student off the course on both sides; returns false if the student was not enrolled
+    public boolean unenroll( Student student, Course course )
+    {
+        synchronized ( student )
+        {
+            Map<String, Student> roster = existing( course.getId() );
+            boolean removed = roster != null && roster.remove( student.getId(), student );
+            return student.dropCourse( course ) || removed;
+        }
+    }
+
+    // Adds a student that already carries enrollments (loaded from storage) to the rosters
+    public void attach( Student student )
+    {
+        for ( Course course : student.getApprovedCourses() )
+        {
+            roster( course.getId() ).put( student.getId(), student );
+        }
+    }
+
+    // Takes a replaced student off the rosters, unless a newer student with the same id is already there
+    public void detach( Student student )
+    {
+        for ( Course course : student.getApprovedCourses() )
+        {
+            Map<String, Student> roster = existing( course.getId() );
+            if ( roster != null )
+            {
+                roster.remove( student.getId(), student );
+            }
+        }
+    }
+
+    public boolean isEnrolled( String courseCode, String studentId )
+    {
+        Map<String, Student> roster = existing( CourseCodes.idOf( courseCode ) );
+        return roster != null && roster.containsKey( studentId );
+    }
+
+    public int getEnrolledCount( String courseCode )
+    {
+        return getEnrolledCount( CourseCodes.idOf( courseCode ) );
+    }
+
+    public int getEnrolledCount( int courseId )
+    {
+        Map<String, Student> roster = existing( courseId );
+        return roster != null ? roster.size() : 0;
+    }
+
+    // Visits the students enrolled in the course without copying the roster
+    public void forEachEnrolled( int courseId, Consumer<Student> visitor )
+    {
+        Map<String, Student> roster = existing( courseId );
+        if ( roster != null )
+        {
+            roster.values().forEach( visitor );
+        }
+    }
+
+    // Snapshot of the students enrolled in the course
+    public List<Student> getRoster( String courseCode )
+    {
+        Map<String, Student> roster = existing( CourseCodes.idOf( courseCode ) );
+        return roster != null ? new ArrayList<>( roster.values() ) : Collections.emptyList();
+    }
+
+    // Codes of the courses that have had at least one enrollment
+    public Set<String> getCourseCodes()
+    {
+        Map<String, Student>[] current = rosters;
+        Set<String> codes = new LinkedHashSet<>();
+        for ( int courseId = 0; courseId < current.length; courseId++ )
+        {
+            if ( current[courseId] != null )
+            {
+                codes.add( CourseCodes.codeOf( courseId ) );
+            }
+        }
+        return Collections.unmodifiableSet( codes );
+    }
+
+    // Visits every (course code, enrolled student) pair
+    public void forEach( BiConsumer<String, Student> visitor )
+    {
+        Map<String, Student>[] current = rosters;
+        for ( int courseId = 0; courseId < current.length; courseId++ )
+        {
+            if ( current[courseId] != null )
+            {
+                String courseCode = CourseCodes.codeOf( courseId );
+                for ( Student student : current[courseId].values() )
+                {
+                    visitor.accept( courseCode, student );
+                }
+            }
+        }
+    }
+
+    private Map<String, Student> existing( int courseId )
+    {
+        Map<String, Student>[] current = rosters;
+        return courseId >= 0 && courseId < current.length ? current[courseId] : null;
+    }
+
+    private Map<String, Student> roster( int courseId )
+    {
+        Map<String, Student> roster = existing( courseId );
+        if ( roster != null )
+        {
+            return roster;
+        }
+        synchronized ( this )
+        {
+            Map<String, Student>[] current = rosters;
+            if ( courseId >= current.length )
+            {
+                current = Arrays.copyOf( current, Math.max( courseId + 1, current.length * 2 ) );
+            }
+            else if ( current[courseId] != null )
+            {
+                return current[courseId];
+            }
+            else
+            {
+                current = current.clone();
+            }
+            roster = new ConcurrentHashMap<>();
+            current[courseId] = roster;
+            rosters = current;
+            return roster;
+        }
+    }
+}
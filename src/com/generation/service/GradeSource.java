@@ -0,0 +1,17 @@
+package com.generation.service;
+
+import com.generation.model.Course;
+import com.generation.model.Student;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Decides the grade a student receives when graded by the service.
+// Implementations are called from several threads at once during batch grading.
+public interface GradeSource
+{
+    // Random grade between 40 and 100, so most students pass (>= 50) but some fail.
+    // Every thread draws from its own generator, so parallel grading does not contend on one seed.
+    GradeSource RANDOM = ( student, course ) -> 40 + ThreadLocalRandom.current().nextDouble() * 60;
+
+    double nextGrade( Student student, Course course );
+}
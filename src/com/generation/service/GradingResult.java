@@ -0,0 +1,131 @@
+package com.generation.service;
+
+// Summary of one batch grading run: how many students were graded, passed or skipped and the
+// grade range. Partial results from the grading threads are merged into one.
+public class GradingResult
+{
+    public static final double PASS_GRADE = 50.0;
+
+    private final String courseCode;
+
+    private long graded;
+
+    private long passed;
+
+    private long notFound;
+
+    private long notEnrolled;
+
+    private double sum;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private long elapsedNanos;
+
+    GradingResult( String courseCode )
+    {
+        this.courseCode = courseCode;
+    }
+
+    void graded( double grade )
+    {
+        graded++;
+        if ( grade >= PASS_GRADE )
+        {
+            passed++;
+        }
+        sum += grade;
+        min = Math.min( min, grade );
+        max = Math.max( max, grade );
+    }
+
+    void notFound()
+    {
+        notFound++;
+    }
+
+    void notEnrolled()
+    {
+        notEnrolled++;
+    }
+
+    void merge( GradingResult other )
+    {
+        graded += other.graded;
+        passed += other.passed;
+        notFound += other.notFound;
+        notEnrolled += other.notEnrolled;
+        sum += other.sum;
+        min = Math.min( min, other.min );
+        max = Math.max( max, other.max );
+    }
+
+    void setElapsedNanos( long elapsedNanos )
+    {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getCourseCode()
+    {
+        return courseCode;
+    }
+
+    public long getGraded()
+    {
+        return graded;
+    }
+
+    public long getPassed()
+    {
+        return passed;
+    }
+
+    public long getFailed()
+    {
+        return graded - passed;
+    }
+
+    // Requested ids that do not belong to a subscribed student
+    public long getNotFound()
+    {
+        return notFound;
+    }
+
+    // Students that were skipped because they are not enrolled in the course
+    public long getNotEnrolled()
+    {
+        return notEnrolled;
+    }
+
+    // Average of the grades given in this run, or -1 if nobody was graded
+    public double getAverage()
+    {
+        return graded > 0 ? sum / graded : -1;
+    }
+
+    public double getMin()
+    {
+        return graded > 0 ? min : -1;
+    }
+
+    public double getMax()
+    {
+        return graded > 0 ? max : -1;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GradingResult{" + "course='" + courseCode + '\'' + ", graded=" + graded + ", passed=" + passed
+            + ", failed=" + getFailed() + ", notFound=" + notFound + ", notEnrolled=" + notEnrolled + ", average="
+            + String.format( "%.2f", getAverage() ) + ", min=" + String.format( "%.2f", getMin() ) + ", max="
+            + String.format( "%.2f", getMax() ) + ", elapsedMs=" + elapsedNanos / 1_000_000 + '}';
+    }
+}
@@ -0,0 +1,35 @@
+package com.generation.service;
+
+import com.generation.model.Student;
+
+import java.util.List;
+
+// One page of a student query plus the cursor to pass in for the next page
+public class StudentPage
+{
+    private final List<Student> students;
+
+    private final String nextCursor;
+
+    public StudentPage( List<Student> students, String nextCursor )
+    {
+        this.students = students;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Student> getStudents()
+    {
+        return students;
+    }
+
+    // Null when this is the last page
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+
+    public boolean hasNext()
+    {
+        return nextCursor != null;
+    }
+}
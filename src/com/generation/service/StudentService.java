@@ -1,32 +1,479 @@
 package com.generation.service;
 
+import com.generation.metrics.Counter;
+import com.generation.metrics.Metrics;
+import com.generation.metrics.Timer;
 import com.generation.model.Course;
+import com.generation.model.CourseCodes;
+import com.generation.model.GradeListener;
+import com.generation.model.GradeStatistics;
+import com.generation.model.GradeTable;
+import com.generation.model.Ranking;
 import com.generation.model.Student;
+import com.generation.model.StudentIds;
+import com.generation.storage.Journal;
+import com.generation.utils.SummaryRenderer;
 
-import java.util.Date;
-import java.util.HashMap;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
-public class StudentService {
-    private final Map<String, Student> students = new HashMap<>();
+// Safe for concurrent use: students live in a concurrent map, every Student guards its own
+// state and every course aggregate is locked separately, so there is no global lock.
+public class StudentService implements GradeListener {
+    private static final Timer FIND_STUDENT = Metrics.timer("StudentService.findStudent");
+
+    private static final Timer SUBSCRIBE_STUDENT = Metrics.timer("StudentService.subscribeStudent");
+
+    private static final Timer ENROLL_TO_COURSE = Metrics.timer("StudentService.enrollToCourse");
+
+    private static final Timer GRADE_STUDENT = Metrics.timer("StudentService.gradeStudent");
+
+    private static final Timer GRADE_STUDENTS = Metrics.timer("StudentService.gradeStudents");
+
+    private static final Timer COURSE_AVERAGE = Metrics.timer("StudentService.getCourseAverageGrade");
+
+    private static final Timer QUERY_STUDENTS = Metrics.timer("StudentService.queryStudents");
+
+    private static final Timer GRADE_CHANGED = Metrics.timer("StudentService.gradeChanged");
+
+    private static final int AVERAGE_RANKING_STRIPES = 8;
+
+    // Students per gradeStudents work item
+    private static final int GRADING_CHUNK = 1024;
+
+    private static final Counter GRADES_RECORDED = Metrics.counter("studentgen_grades_recorded_total",
+            "Grades written by any path, including regrades.");
+
+    private final Map<String, Student> students = new ConcurrentHashMap<>();
+
+    // Ids claimed by subscribeIfAbsent calls in progress
+    private final Map<String, Student> subscribingIds = new ConcurrentHashMap<>();
+
+    // Sorted views used by queryStudents; the name key is the lower-cased name, NUL, then the id
+    private final NavigableMap<String, Student> studentsById = new ConcurrentSkipListMap<>();
+
+    private final NavigableMap<String, Student> studentsByName = new ConcurrentSkipListMap<>();
+
+    // Secondary indexes: lower-cased email (unique) and birth date range
+    private final Map<String, Student> studentsByEmail = new ConcurrentHashMap<>();
+
+    private final NavigableMap<Long, Student> studentsByBirthDate = new ConcurrentSkipListMap<>();
+
+    // Enrollments, shared with CourseService when both are built over the same index
+    private final EnrollmentIndex enrollments;
+
+    // Per-course grade aggregates, kept up to date on every grade write
+    private final Map<String, GradeStatistics> courseStatistics = new ConcurrentHashMap<>();
+
+    // Columnar copy of every grade, partitioned by course, for scan-heavy reports and course rankings
+    private final GradeTable gradeTable = new GradeTable();
+
+    // Order statistics per course grade and over the students' averages, for top-N, rank and percentile.
+    // Every grade moves an average, so the average ranking is striped.
+    private final Map<String, Ranking> courseRankings = new ConcurrentHashMap<>();
+
+    private final Ranking averageRanking = new Ranking(new AverageScores(), AVERAGE_RANKING_STRIPES);
+
+    // Set while this thread grades a chunk for gradeStudents
+    private final ThreadLocal<GradeBatch> gradeBatch = new ThreadLocal<>();
+
+    // Receives every mutation, see StorageEngine
+    private volatile Journal journal = Journal.NONE;
+
+    // Consulted on a lookup miss while stored students are still being loaded
+    private volatile StudentSource studentSource;
 
-    // Generate dummy students
     public StudentService() {
-        subscribeStudent(new Student("001", "John Doe", "johndoe@gmail.com", new Date("01/01/2000")));
-        subscribeStudent(new Student("002", "May Fair", "mayfair@gmail.com", new Date("02/02/2010")));
-        subscribeStudent(new Student("003", "Steve Smith", "stevesmith@gmail.com", new Date("03/03/2015")));
+        this(new EnrollmentIndex());
+    }
+
+    // Generate dummy students
+    public StudentService(EnrollmentIndex enrollments) {
+        this.enrollments = enrollments;
+        subscribeStudent(new Student("001", "John Doe", "johndoe@gmail.com", LocalDate.of(2000, 1, 1)));
+        subscribeStudent(new Student("002", "May Fair", "mayfair@gmail.com", LocalDate.of(2010, 2, 2)));
+        subscribeStudent(new Student("003", "Steve Smith", "stevesmith@gmail.com", LocalDate.of(2015, 3, 3)));
     }
 
+    // Throws IllegalArgumentException if another student already uses the same email
     public void subscribeStudent(Student student) {
-        students.put(student.getId(), student);
+        long start = SUBSCRIBE_STUDENT.start();
+        try {
+            subscribe(student);
+        } finally {
+            SUBSCRIBE_STUDENT.stop(start);
+        }
+    }
+
+    // Subscribes the student only if its id is not taken yet, in memory or in the student source.
+    // Returns false without changing anything if it is; of two concurrent calls with the same id at
+    // most one returns true. Throws IllegalArgumentException like subscribeStudent.
+    public boolean subscribeIfAbsent(Student student) {
+        long start = SUBSCRIBE_STUDENT.start();
+        try {
+            String id = student.getId();
+            if (findStudent(id) != null || subscribingIds.putIfAbsent(id, student) != null) {
+                return false;
+            }
+            try {
+                // another call may have finished between the lookup and the claim
+                if (students.containsKey(id)) {
+                    return false;
+                }
+                subscribe(student);
+                return true;
+            } finally {
+                subscribingIds.remove(id, student);
+            }
+        } finally {
+            SUBSCRIBE_STUDENT.stop(start);
+        }
+    }
+
+    private void subscribe(Student student) {
+        String emailKey = emailKey(student);
+        if (emailKey != null) {
+            StudentSource source = studentSource;
+            if (source != null) {
+                // a stored owner of the email must be in the email index before it is checked
+                String ownerId = source.findIdByEmail(emailKey);
+                if (ownerId != null) {
+                    findStudent(ownerId);
+                }
+            }
+            studentsByEmail.compute(emailKey, (key, owner) -> {
+                if (owner != null && !owner.getId().equals(student.getId())) {
+                    throw new IllegalArgumentException("Email " + student.getEmail()
+                            + " is already registered to student " + owner.getId());
+                }
+                return student;
+            });
+        }
+        // grades are journaled under the student's lock, so holding it until the subscription is
+        // journaled keeps any grade of the newly visible student behind its SUBSCRIBE record
+        synchronized (student) {
+            Student previous = students.put(student.getId(), student);
+            if (previous == student) {
+                return;
+            }
+            journal.studentSubscribed(student);
+            if (previous != null) {
+                detach(previous);
+            }
+            attach(student);
+        }
+    }
+
+    // Starts tracking a newly added student in the sorted views and the course aggregates
+    private void attach(Student student) {
+        studentsById.put(student.getId(), student);
+        studentsByName.put(nameKey(student), student);
+        String emailKey = emailKey(student);
+        if (emailKey != null) {
+            studentsByEmail.put(emailKey, student);
+        }
+        if (student.hasBirthDate()) {
+            studentsByBirthDate.put(birthDateKey(student), student);
+        }
+        enrollments.attach(student);
+        // hold the student's lock so no grade slips in between the snapshot and the listener
+        synchronized (student) {
+            int ordinal = student.getHandle();
+            student.forEachGrade((courseId, grade) -> {
+                String courseCode = CourseCodes.codeOf(courseId);
+                getOrCreateStatistics(courseCode).add(grade);
+                gradeTable.put(ordinal, courseId, grade);
+                getOrCreateRanking(courseCode).add(student, grade);
+            });
+            if (student.getGradedCourseCount() > 0) {
+                averageRanking.add(student, student.getAverage());
+            }
+            student.setGradeListener(this);
+        }
+    }
+
+    // The replaced student no longer contributes to the sorted views or the course aggregates
+    private void detach(Student student) {
+        studentsByName.remove(nameKey(student), student);
+        String emailKey = emailKey(student);
+        if (emailKey != null) {
+            studentsByEmail.remove(emailKey, student);
+        }
+        if (student.hasBirthDate()) {
+            studentsByBirthDate.remove(birthDateKey(student), student);
+        }
+        enrollments.detach(student);
+        synchronized (student) {
+            student.setGradeListener(null);
+            int ordinal = student.getHandle();
+            student.forEachGrade((courseId, grade) -> {
+                String courseCode = CourseCodes.codeOf(courseId);
+                getOrCreateStatistics(courseCode).remove(grade);
+                gradeTable.remove(ordinal, courseId);
+                getOrCreateRanking(courseCode).remove(student, grade);
+            });
+            if (student.getGradedCourseCount() > 0) {
+                averageRanking.remove(student, student.getAverage());
+            }
+        }
+    }
+
+    private static String nameKey(Student student) {
+        return String.valueOf(student.getName()).toLowerCase() + '\0' + student.getId();
+    }
+
+    private static String emailKey(Student student) {
+        return student.getEmail() != null ? student.getEmail().toLowerCase() : null;
+    }
+
+    // Student with this email (case insensitive), or null
+    public Student findStudentByEmail(String email) {
+        return studentsByEmail.get(email.toLowerCase());
+    }
+
+    // Up to limit students whose name starts with the prefix (case insensitive), ordered by name.
+    // Served from the sorted name view, so the cost is one seek plus the rows returned.
+    public List<Student> findStudentsByNamePrefix(String prefix, int limit) {
+        String from = prefix.toLowerCase();
+        List<Student> matches = new ArrayList<>(Math.min(limit, 64));
+        for (Student student : studentsByName.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            if (matches.size() == limit) {
+                break;
+            }
+            matches.add(student);
+        }
+        return matches;
+    }
+
+    // Up to limit students born between from and to, both inclusive, ordered by birth date
+    public List<Student> findStudentsBornBetween(LocalDate from, LocalDate to, int limit) {
+        return findStudentsBornBetween(toEpochDay(from), toEpochDay(to), limit);
+    }
+
+    // LocalDate.MIN and MAX are outside the int range of epoch days
+    private static int toEpochDay(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE - 1, date.toEpochDay()));
+    }
+
+    // Same as above with both bounds as epoch days
+    public List<Student> findStudentsBornBetween(int fromEpochDay, int toEpochDay, int limit) {
+        List<Student> matches = new ArrayList<>(Math.min(limit, 64));
+        if (fromEpochDay > toEpochDay) {
+            return matches;
+        }
+        long lower = (long) fromEpochDay << 32;
+        long upper = ((long) toEpochDay + 1) << 32;
+        for (Student student : studentsByBirthDate.subMap(lower, true, upper, false).values()) {
+            if (matches.size() == limit) {
+                break;
+            }
+            matches.add(student);
+        }
+        return matches;
+    }
+
+    // Orders the birth date index by epoch day, then by id handle so students born on the same day
+    // stay distinct; a replaced student keeps the key of its id
+    private static long birthDateKey(Student student) {
+        return (long) student.getBirthEpochDay() << 32 | student.getHandle();
+    }
+
+    // Returns up to pageSize students in the given order, optionally only those attending courseCode.
+    // Pass null as cursor for the first page and the previous page's next cursor after that.
+    public StudentPage queryStudents(StudentSort sort, String courseCode, String cursor, int pageSize) {
+        long start = QUERY_STUDENTS.start();
+        try {
+            return query(sort, courseCode, cursor, pageSize);
+        } finally {
+            QUERY_STUDENTS.stop(start);
+        }
+    }
+
+    private StudentPage query(StudentSort sort, String courseCode, String cursor, int pageSize) {
+        NavigableMap<String, Student> index = sort == StudentSort.NAME ? studentsByName : studentsById;
+        int courseId = -1;
+        if (courseCode != null) {
+            courseId = CourseCodes.idOf(courseCode);
+            if (courseId < 0) {
+                return new StudentPage(new ArrayList<>(), null);
+            }
+            // a page costs about pageSize * students / enrolled entries of the sorted view, or one
+            // pass over the roster, so small rosters are cheaper to sort than to find in the view
+            long enrolled = enrollments.getEnrolledCount(courseId);
+            if (enrolled * enrolled < (long) pageSize * students.size()) {
+                return queryRoster(sort, courseId, cursor, pageSize);
+            }
+        }
+        Map<String, Student> remaining = cursor == null ? index : index.tailMap(cursor, false);
+        List<Student> page = new ArrayList<>(pageSize);
+        String lastKey = null;
+        for (Map.Entry<String, Student> entry : remaining.entrySet()) {
+            if (page.size() == pageSize) {
+                return new StudentPage(page, lastKey);
+            }
+            Student student = entry.getValue();
+            if (courseId < 0 || student.isAttendingCourse(courseId)) {
+                page.add(student);
+                lastKey = entry.getKey();
+            }
+        }
+        return new StudentPage(page, null);
+    }
+
+    // Same page as above, picked from the course roster with the keys of the sorted view
+    private StudentPage queryRoster(StudentSort sort, int courseId, String cursor, int pageSize) {
+        // the pageSize + 1 smallest keys after the cursor; the extra one tells whether a next page exists
+        TreeMap<String, Student> smallest = new TreeMap<>();
+        enrollments.forEachEnrolled(courseId, student -> {
+            String key = sort == StudentSort.NAME ? nameKey(student) : student.getId();
+            if (cursor == null || key.compareTo(cursor) > 0) {
+                smallest.put(key, student);
+                if (smallest.size() > pageSize + 1) {
+                    smallest.pollLastEntry();
+                }
+            }
+        });
+        if (smallest.size() <= pageSize) {
+            return new StudentPage(new ArrayList<>(smallest.values()), null);
+        }
+        smallest.pollLastEntry();
+        return new StudentPage(new ArrayList<>(smallest.values()), smallest.lastKey());
+    }
+
+    // Batch variant used by the bulk importer
+    public void subscribeStudents(Collection<Student> batch) {
+        for (Student student : batch) {
+            subscribeStudent(student);
+        }
+    }
+
+    @Override
+    public void gradeChanged(Student student, String courseCode, double previousGrade, double grade,
+                             double previousAverage) {
+        long start = GRADE_CHANGED.start();
+        try {
+            GRADES_RECORDED.increment();
+            gradeTable.put(student.getHandle(), CourseCodes.intern(courseCode), grade);
+            GradeBatch batch = gradeBatch.get();
+            if (batch != null && batch.courseCode.equals(courseCode)) {
+                // bulk grading applies these when its chunk ends, see gradeChunk
+                batch.statistics.replace(previousGrade, grade);
+                batch.courseRanking.replace(student, previousGrade, grade);
+                batch.averageRanking.replace(student, previousAverage, student.getAverage());
+            } else {
+                getOrCreateStatistics(courseCode).replace(previousGrade, grade);
+                getOrCreateRanking(courseCode).replace(student, previousGrade, grade);
+                averageRanking.replace(student, previousAverage, student.getAverage());
+            }
+            // called under the student's lock, so grades of one student are journaled in order
+            journal.studentGraded(student.getId(), courseCode, grade);
+        } finally {
+            GRADE_CHANGED.stop(start);
+        }
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    private GradeStatistics getOrCreateStatistics(String courseCode) {
+        return courseStatistics.computeIfAbsent(courseCode, code -> new GradeStatistics());
+    }
+
+    private Ranking getOrCreateRanking(String courseCode) {
+        return courseRankings.computeIfAbsent(courseCode,
+                code -> new Ranking(new CourseScores(CourseCodes.intern(code)), 1));
+    }
+
+    // Grades of one course, read from the columnar table
+    private final class CourseScores implements Ranking.Scores {
+        private final int courseId;
+
+        CourseScores(int courseId) {
+            this.courseId = courseId;
+        }
+
+        @Override
+        public double scoreOf(String studentId) {
+            return gradeTable.getGrade(StudentIds.handleOf(studentId), courseId);
+        }
+
+        @Override
+        public Student studentOf(int handle) {
+            return students.get(StudentIds.idOf(handle));
+        }
+    }
+
+    // Averages of the students with at least one grade, read from the students
+    private final class AverageScores implements Ranking.Scores {
+        @Override
+        public double scoreOf(String studentId) {
+            Student student = students.get(studentId);
+            return student != null && student.getGradedCourseCount() > 0 ? student.getAverage() : Double.NaN;
+        }
+
+        @Override
+        public Student studentOf(int handle) {
+            return students.get(StudentIds.idOf(handle));
+        }
     }
 
     public Student findStudent(String studentId) {
-        if (students.containsKey(studentId)) {
-            return students.get(studentId);
+        long start = FIND_STUDENT.start();
+        try {
+            Student student = students.get(studentId);
+            if (student == null && studentSource != null) {
+                student = materialize(studentId);
+            }
+            return student;
+        } finally {
+            FIND_STUDENT.stop(start);
+        }
+    }
+
+    // Loads a stored student into memory; not journaled because it is already durable
+    private Student materialize(String studentId) {
+        Student loaded = studentSource.load(studentId);
+        if (loaded == null) {
+            return null;
+        }
+        Student existing = students.putIfAbsent(studentId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        attach(loaded);
+        return loaded;
+    }
+
+    // Set while stored students are loaded lazily, cleared once all of them are in memory.
+    // Stored students replace the ones created before, such as the seeded dummy students.
+    public void setStudentSource(StudentSource studentSource) {
+        this.studentSource = studentSource;
+        if (studentSource == null) {
+            return;
+        }
+        for (String studentId : List.copyOf(students.keySet())) {
+            Student stored = studentSource.load(studentId);
+            if (stored != null) {
+                synchronized (stored) {
+                    Student previous = students.put(studentId, stored);
+                    if (previous != null) {
+                        detach(previous);
+                    }
+                    attach(stored);
+                }
+            }
         }
-        return null;
     }
 
     public boolean isSubscribed(String studentId) {
@@ -35,78 +482,192 @@ public class StudentService {
 
     public void showSummary() {
         // Show the student details and the enrolled courses
-        System.out.println("Enrolled Students");
+        SummaryRenderer renderer = SummaryRenderer.forOutputStream(System.out);
+        renderer.renderStudents(this, 0, SummaryRenderer.ALL);
+        renderer.flush();
+    }
 
-        for (String key : students.keySet()) {
-            // first outer for loop prints out the student's info.
-            Student student = students.get(key);
-            System.out.println(student);
+    public void enrollToCourse(String studentId, Course course) {
+        long start = ENROLL_TO_COURSE.start();
+        try {
+            Student student = findStudent(studentId);
+            if (student != null && enrollments.enroll(student, course)) {
+                journal.studentEnrolled(studentId, course.getCode());
+            }
+        } finally {
+            ENROLL_TO_COURSE.stop(start);
+        }
+    }
 
-            List<Course> enrolledCourses = student.getApprovedCourses();
+    // AUTO-GRADE: Generate random grade between 40-100
+    public void gradeStudent(String studentId, Course course) {
+        long start = GRADE_STUDENT.start();
+        try {
+            Student student = findStudent(studentId);
+            if (student == null) {
+                System.out.println("Student with Id = " + studentId + " not found");
+                return;
+            }
 
-            if (enrolledCourses.size() > 0) {
-                System.out.println("\tEnrolled Courses");
+            // Auto-generate a realistic grade (40-100 range)
+            double gradeScore = GradeSource.RANDOM.nextGrade(student, course);
 
-                for (Course course : enrolledCourses) {
-                    System.out.println("\t" + course);
-                    // Show grade if student has been graded
-                    Double grade = student.getGradeForCourse(course.getCode());
-                    if (grade != null) {
-                        System.out.println("\t\tGrade: " + String.format("%.2f", grade));
-                    }
-                }
+            // Store the grade
+            student.gradeInCourse(course.getCode(), gradeScore);
+
+            System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+            System.out.println("Student " + studentId + " graded in " + course.getName());
+            System.out.println("Grade: " + String.format("%.2f", gradeScore) + "/100");
+
+            if (gradeScore >= 50.0) {
+                System.out.println("Status: ✓ PASSED");
             } else {
-                System.out.println("\tNo course found.");
+                System.out.println("Status: ✗ FAILED");
             }
+            System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        } finally {
+            GRADE_STUDENT.stop(start);
         }
     }
 
-    public void enrollToCourse(String studentId, Course course) {
-        if (students.containsKey(studentId)) {
-            students.get(studentId).enrollToCourse(course);
+    // Grades every listed student enrolled in the course, in parallel and without console output.
+    // Unknown ids and students not enrolled in the course are counted in the result and skipped.
+    public GradingResult gradeStudents(Course course, Collection<String> studentIds, GradeSource gradeSource) {
+        long start = System.nanoTime();
+        GradingResult result = gradeInChunks(course, new ArrayList<>(studentIds), this::findStudent,
+                student -> true, gradeSource);
+        result.setElapsedNanos(System.nanoTime() - start);
+        GRADE_STUDENTS.record(result.getElapsedNanos());
+        return result;
+    }
+
+    public GradingResult gradeStudents(Course course, Collection<String> studentIds) {
+        return gradeStudents(course, studentIds, GradeSource.RANDOM);
+    }
+
+    // Grades every student enrolled in the course that matches the filter, in parallel
+    public GradingResult gradeStudents(Course course, Predicate<Student> filter, GradeSource gradeSource) {
+        long start = System.nanoTime();
+        GradingResult result = gradeInChunks(course, enrollments.getRoster(course.getCode()), student -> student,
+                filter, gradeSource);
+        result.setElapsedNanos(System.nanoTime() - start);
+        GRADE_STUDENTS.record(result.getElapsedNanos());
+        return result;
+    }
+
+    public GradingResult gradeStudents(Course course, Predicate<Student> filter) {
+        return gradeStudents(course, filter, GradeSource.RANDOM);
+    }
+
+    // Splits the work into chunks graded in parallel. Each chunk collects the statistics and ranking
+    // updates of its grades and applies them once at its end, so threads grading the same course do not
+    // take the course's aggregate locks per grade. The journal still gets one record per grade, written
+    // under the student's lock, because replay must see grades in the order they became visible.
+    private <T> GradingResult gradeInChunks(Course course, List<T> items, Function<T, Student> lookup,
+                                            Predicate<Student> filter, GradeSource gradeSource) {
+        int chunks = (items.size() + GRADING_CHUNK - 1) / GRADING_CHUNK;
+        return IntStream.range(0, chunks).parallel().collect(
+                () -> new GradingResult(course.getCode()),
+                (result, chunk) -> result.merge(gradeChunk(course,
+                        items.subList(chunk * GRADING_CHUNK, Math.min(items.size(), (chunk + 1) * GRADING_CHUNK)),
+                        lookup, filter, gradeSource)),
+                GradingResult::merge);
+    }
+
+    private <T> GradingResult gradeChunk(Course course, List<T> items, Function<T, Student> lookup,
+                                         Predicate<Student> filter, GradeSource gradeSource) {
+        GradeBatch batch = new GradeBatch(course.getCode(), getOrCreateStatistics(course.getCode()));
+        GradeBatch outer = gradeBatch.get();
+        gradeBatch.set(batch);
+        try {
+            for (T item : items) {
+                Student student = lookup.apply(item);
+                if (student == null || filter.test(student)) {
+                    gradeInBatch(batch.result, student, course, gradeSource);
+                }
+            }
+        } finally {
+            gradeBatch.set(outer);
+            // applied even when the chunk fails half way, since its grades are already stored
+            getOrCreateStatistics(batch.courseCode).apply(batch.statistics);
+            getOrCreateRanking(batch.courseCode).apply(batch.courseRanking);
+            averageRanking.apply(batch.averageRanking);
         }
+        return batch.result;
     }
 
-    // AUTO-GRADE: Generate random grade between 40-100
-    public void gradeStudent(String studentId, Course course) {
-        Student student = students.get(studentId);
+    // Aggregate updates of one grading chunk, for the chunk's course only
+    private static final class GradeBatch {
+        private final String courseCode;
+
+        private final GradingResult result;
 
-        // Auto-generate a realistic grade (40-100 range)
-        // 40-100 ensures most students pass (>= 50) but some fail
-        double gradeScore = 40 + (Math.random() * 60);
+        private final GradeStatistics statistics;
 
-        // Store the grade
-        student.gradeInCourse(course.getCode(), gradeScore);
+        private final Ranking.Batch courseRanking = new Ranking.Batch();
 
-        System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-        System.out.println("Student " + studentId + " graded in " + course.getName());
-        System.out.println("Grade: " + String.format("%.2f", gradeScore) + "/100");
+        private final Ranking.Batch averageRanking = new Ranking.Batch();
 
-        if (gradeScore >= 50.0) {
-            System.out.println("Status: ✓ PASSED");
+        GradeBatch(String courseCode, GradeStatistics courseStatistics) {
+            this.courseCode = courseCode;
+            this.statistics = courseStatistics.openBatch();
+            this.result = new GradingResult(courseCode);
+        }
+    }
+
+    private static void gradeInBatch(GradingResult partial, Student student, Course course, GradeSource gradeSource) {
+        if (student == null) {
+            partial.notFound();
+        } else if (!student.isCourseApproved(course.getCode())) {
+            partial.notEnrolled();
         } else {
-            System.out.println("Status: ✗ FAILED");
+            double grade = gradeSource.nextGrade(student, course);
+            student.gradeInCourse(course.getCode(), grade);
+            partial.graded(grade);
         }
-        System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
     }
 
     // CHALLENGE: Calculate average grade of all students in a course
     public double getCourseAverageGrade(String courseCode) {
-        double totalGrade = 0;
-        int studentCount = 0;
-
-        // Loop through all students
-        for (Student student : students.values()) {
-            // Check if student has a grade for this course
-            Double grade = student.getGradeForCourse(courseCode);
-            if (grade != null) {
-                totalGrade += grade;
-                studentCount++;
-            }
+        long start = COURSE_AVERAGE.start();
+        try {
+            // Return average or -1 if no students graded
+            GradeStatistics statistics = courseStatistics.get(courseCode);
+            return statistics != null ? statistics.getAverage() : -1;
+        } finally {
+            COURSE_AVERAGE.stop(start);
         }
+    }
+
+    // Variance of the grades in a course, or -1 if no students graded
+    public double getCourseGradeVariance(String courseCode) {
+        GradeStatistics statistics = courseStatistics.get(courseCode);
+        return statistics != null ? statistics.getVariance() : -1;
+    }
+
+    // Aggregates for a course, or null if the course has never been graded
+    public GradeStatistics getCourseStatistics(String courseCode) {
+        return courseStatistics.get(courseCode);
+    }
+
+    // Students ranked by the grade in the course, or null if the course has never been graded
+    public Ranking getCourseRanking(String courseCode) {
+        return courseRankings.get(courseCode);
+    }
+
+    // Every grade in columnar form; course ids come from CourseCodes
+    public GradeTable getGradeTable() {
+        return gradeTable;
+    }
+
+    // Students with at least one grade, ranked by their average grade
+    public Ranking getAverageRanking() {
+        return averageRanking;
+    }
 
-        // Return average or -1 if no students graded
-        return studentCount > 0 ? totalGrade / studentCount : -1;
+    // Up to n students with the best average grade, best first
+    public List<Student> getTopStudents(int n) {
+        return averageRanking.top(n);
     }
 
     // method for StudentService.java
@@ -0,0 +1,8 @@
+package com.generation.service;
+
+// Orderings supported by StudentService.queryStudents
+public enum StudentSort
+{
+    ID,
+    NAME
+}
@@ -0,0 +1,13 @@
+package com.generation.service;
+
+import com.generation.model.Student;
+
+// Loads students that are not in memory yet, for example from a mapped snapshot during startup
+public interface StudentSource
+{
+    // Returns a new Student for the id, or null if the source does not know it
+    Student load( String studentId );
+
+    // Id of the stored student with this email (case insensitive), or null
+    String findIdByEmail( String email );
+}
@@ -0,0 +1,40 @@
+package com.generation.storage;
+
+import com.generation.model.Student;
+
+// Receives every mutation made through StudentService and CourseService so it can be made durable
+public interface Journal
+{
+    Journal NONE = new Journal()
+    {
+        @Override
+        public void studentSubscribed( Student student )
+        {
+        }
+
+        @Override
+        public void studentEnrolled( String studentId, String courseCode )
+        {
+        }
+
+        @Override
+        public void courseEnrollment( String courseCode, String studentId )
+        {
+        }
+
+        @Override
+        public void studentGraded( String studentId, String courseCode, double grade )
+        {
+        }
+    };
+
+    void studentSubscribed( Student student );
+
+    // Student side of an enrollment (StudentService.enrollToCourse)
+    void studentEnrolled( String studentId, String courseCode );
+
+    // Course side of an enrollment (CourseService.enrollStudent)
+    void courseEnrollment( String courseCode, String studentId );
+
+    void studentGraded( String studentId, String courseCode, double grade );
+}
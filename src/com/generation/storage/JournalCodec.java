@@ -0,0 +1,236 @@
+package com.generation.storage;
+
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.StudentService;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+// Binary encoding of the write-ahead log records.
+// A journal file starts with [int magic][int version]; each record after it is [int payload length][payload][int CRC32C of payload], where the payload
+// starts with a record type byte followed by the record fields.
+final class JournalCodec
+{
+    static final int MAGIC = 0x53474A4C;
+
+    // 2: birth dates are epoch days, no longer local midnight millis that depend on the time zone
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 8;
+
+    static final byte SUBSCRIBE = 1;
+
+    static final byte STUDENT_ENROLLED = 2;
+
+    static final byte COURSE_ENROLLMENT = 3;
+
+    static final byte GRADE = 4;
+
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private JournalCodec()
+    {
+    }
+
+    // Written once at the start of every journal file
+    static byte[] header()
+    {
+        return ByteBuffer.allocate( HEADER_SIZE ).putInt( MAGIC ).putInt( VERSION ).array();
+    }
+
+    static byte[] subscribe( Student student )
+    {
+        byte[] id = utf8( student.getId() );
+        byte[] name = utf8( student.getName() );
+        byte[] email = utf8( student.getEmail() );
+        ByteBuffer payload = ByteBuffer.allocate( 1 + 12 + length( id ) + length( name ) + length( email ) + 4 );
+        payload.put( SUBSCRIBE );
+        putString( payload, id );
+        putString( payload, name );
+        putString( payload, email );
+        payload.putInt( student.getBirthEpochDay() );
+        return frame( payload );
+    }
+
+    static byte[] enrollment( byte type, String first, String second )
+    {
+        byte[] a = utf8( first );
+        byte[] b = utf8( second );
+        ByteBuffer payload = ByteBuffer.allocate( 1 + 8 + a.length + b.length );
+        payload.put( type );
+        putString( payload, a );
+        putString( payload, b );
+        return frame( payload );
+    }
+
+    static byte[] grade( String studentId, String courseCode, double grade )
+    {
+        byte[] id = utf8( studentId );
+        byte[] code = utf8( courseCode );
+        ByteBuffer payload = ByteBuffer.allocate( 1 + 8 + id.length + code.length + 8 );
+        payload.put( GRADE );
+        putString( payload, id );
+        putString( payload, code );
+        payload.putDouble( grade );
+        return frame( payload );
+    }
+
+    // Applies every intact record from the stream to the services and returns the number of bytes
+    // that were valid. Reading stops at the first torn or corrupt record; a torn header counts as an
+    // empty journal and a journal of another version is rejected.
+    static long replay( InputStream input, StudentService studentService, CourseService courseService )
+        throws IOException
+    {
+        DataInputStream in = new DataInputStream( new BufferedInputStream( input, 1 << 16 ) );
+        try
+        {
+            if ( in.readInt() != MAGIC )
+            {
+                throw new IOException( "Not a StudentGen journal" );
+            }
+            int version = in.readInt();
+            if ( version != VERSION )
+            {
+                throw new IOException( "Unsupported journal version " + version );
+            }
+        }
+        catch ( EOFException e )
+        {
+            return 0;
+        }
+        long validBytes = HEADER_SIZE;
+        CRC32C crc = new CRC32C();
+        while ( true )
+        {
+            byte[] payload;
+            int checksum;
+            try
+            {
+                int length = in.readInt();
+                if ( length <= 0 || length > MAX_RECORD_SIZE )
+                {
+                    return validBytes;
+                }
+                payload = new byte[length];
+                in.readFully( payload );
+                checksum = in.readInt();
+            }
+            catch ( EOFException e )
+            {
+                return validBytes;
+            }
+            crc.reset();
+            crc.update( payload );
+            if ( (int) crc.getValue() != checksum )
+            {
+                return validBytes;
+            }
+            apply( ByteBuffer.wrap( payload ), studentService, courseService );
+            validBytes += 8 + payload.length;
+        }
+    }
+
+    private static void apply( ByteBuffer payload, StudentService studentService, CourseService courseService )
+    {
+        switch ( payload.get() )
+        {
+            case SUBSCRIBE:
+            {
+                String id = getString( payload );
+                String name = getString( payload );
+                String email = getString( payload );
+                int birthEpochDay = payload.getInt();
+                studentService.subscribeStudent( new Student( id, name, email, birthEpochDay ) );
+                break;
+            }
+            case STUDENT_ENROLLED:
+            {
+                Student student = studentService.findStudent( getString( payload ) );
+                String courseCode = getString( payload );
+                if ( student != null )
+                {
+                    // prerequisites were checked when the enrollment was first made
+                    courseService.restoreEnrollment( courseCode, student );
+                }
+                break;
+            }
+            case COURSE_ENROLLMENT:
+            {
+                String courseCode = getString( payload );
+                Student student = studentService.findStudent( getString( payload ) );
+                if ( student != null )
+                {
+                    courseService.restoreEnrollment( courseCode, student );
+                }
+                break;
+            }
+            case GRADE:
+            {
+                Student student = studentService.findStudent( getString( payload ) );
+                String courseCode = getString( payload );
+                double grade = payload.getDouble();
+                if ( student != null )
+                {
+                    student.gradeInCourse( courseCode, grade );
+                }
+                break;
+            }
+            default:
+                // unknown record types are skipped so older readers survive newer logs
+                break;
+        }
+    }
+
+    private static byte[] frame( ByteBuffer payload )
+    {
+        CRC32C crc = new CRC32C();
+        crc.update( payload.array(), 0, payload.position() );
+        ByteBuffer record = ByteBuffer.allocate( 8 + payload.position() );
+        record.putInt( payload.position() );
+        record.put( payload.array(), 0, payload.position() );
+        record.putInt( (int) crc.getValue() );
+        return record.array();
+    }
+
+    // Null stays null and is written with a length of -1
+    private static byte[] utf8( String value )
+    {
+        return value != null ? value.getBytes( StandardCharsets.UTF_8 ) : null;
+    }
+
+    private static void putString( ByteBuffer buffer, byte[] bytes )
+    {
+        if ( bytes == null )
+        {
+            buffer.putInt( -1 );
+            return;
+        }
+        buffer.putInt( bytes.length );
+        buffer.put( bytes );
+    }
+
+    private static int length( byte[] bytes )
+    {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    private static String getString( ByteBuffer buffer )
+    {
+        int length = buffer.getInt();
+        if ( length < 0 )
+        {
+            return null;
+        }
+        String value = new String( buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                                   StandardCharsets.UTF_8 );
+        buffer.position( buffer.position() + length );
+        return value;
+    }
+}
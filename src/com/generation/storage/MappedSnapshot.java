@@ -0,0 +1,562 @@
+package com.generation.storage;
+
+import com.generation.model.Course;
+import com.generation.model.CourseCodes;
+import com.generation.model.Module;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.StudentService;
+import com.generation.service.StudentSource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Compact binary image of the StudentService and CourseService state, read through a
+// MappedByteBuffer. Opening only maps the file and decodes the modules and courses; students
+// are decoded on demand through a hash index, so lookups can be served before the whole
+// roster is materialized.
+//
+// Layout (big endian), written in a single pass with the section offsets in a fixed footer:
+//   header    magic, version, journal generation
+//   modules   count, (code, name, description)*, then per module its prerequisite ordinals
+//   courses   count, (code, name, credits, module ordinal)*
+//   students  (id, name, email, birth epoch day, enrolled course code ids, (code id, grade)*)*
+//   rosters   count, (code id, student count, student ordinals)*
+//   offsets   student record offset by ordinal
+//   index     (id hash, ordinal)* sorted by hash
+//   codes     course code by code id
+//   footer    student count and section offsets
+// Strings are an int byte length, -1 for null, followed by the UTF-8 bytes.
+public class MappedSnapshot
+    implements StudentSource
+{
+    private static final int MAGIC = 0x53474D31;
+
+    // 2: birth dates are epoch days, no longer local midnight millis that depend on the time zone
+    // 3: strings have an int length, -1 for null
+    private static final int VERSION = 3;
+
+    private static final int FOOTER_SIZE = 4 + 8 * 5 + 4;
+
+    private final MappedByteBuffer buffer;
+
+    private final long generation;
+
+    private final int studentCount;
+
+    private final long rostersOffset;
+
+    private final long offsetsOffset;
+
+    private final long indexOffset;
+
+    private final String[] codes;
+
+    private final Map<String, Module> modules = new LinkedHashMap<>();
+
+    private final Map<String, Course> courses = new LinkedHashMap<>();
+
+    // Lower-cased email hash in the high bits and ordinal in the low bits, sorted; built on the
+    // first email lookup because only subscriptions made while loading need it
+    private long[] emailIndex;
+
+    // Students decoded by load() until materialize() ends; a student the service holds that is not
+    // one of these was subscribed again by the journal, so its snapshot enrollments are stale
+    private final Set<Student> loaded = Collections.synchronizedSet( Collections.newSetFromMap( new IdentityHashMap<>() ) );
+
+    private MappedSnapshot( MappedByteBuffer buffer )
+        throws IOException
+    {
+        this.buffer = buffer;
+        if ( buffer.getInt( 0 ) != MAGIC )
+        {
+            throw new IOException( "Not a StudentGen binary snapshot" );
+        }
+        if ( buffer.getInt( 4 ) != VERSION )
+        {
+            throw new IOException( "Unsupported snapshot version " + buffer.getInt( 4 ) );
+        }
+        generation = buffer.getLong( 8 );
+        int footer = buffer.limit() - FOOTER_SIZE;
+        if ( buffer.getInt( footer + FOOTER_SIZE - 4 ) != MAGIC )
+        {
+            throw new IOException( "Snapshot is truncated" );
+        }
+        studentCount = buffer.getInt( footer );
+        long modulesOffset = buffer.getLong( footer + 4 );
+        rostersOffset = buffer.getLong( footer + 12 );
+        offsetsOffset = buffer.getLong( footer + 20 );
+        indexOffset = buffer.getLong( footer + 28 );
+        long codesOffset = buffer.getLong( footer + 36 );
+
+        ByteBuffer in = at( codesOffset );
+        codes = new String[in.getInt()];
+        for ( int i = 0; i < codes.length; i++ )
+        {
+            codes[i] = getString( in );
+        }
+        readCatalog( at( modulesOffset ) );
+    }
+
+    public static MappedSnapshot open( Path file )
+        throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            if ( channel.size() > Integer.MAX_VALUE )
+            {
+                throw new IOException( "Snapshot " + file + " is larger than 2 GB" );
+            }
+            // the mapping stays valid after the channel is closed
+            return new MappedSnapshot( channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+        }
+    }
+
+    private void readCatalog( ByteBuffer in )
+    {
+        Module[] moduleByOrdinal = new Module[in.getInt()];
+        for ( int i = 0; i < moduleByOrdinal.length; i++ )
+        {
+            moduleByOrdinal[i] = new Module( getString( in ), getString( in ), getString( in ) );
+            modules.put( moduleByOrdinal[i].getCode(), moduleByOrdinal[i] );
+        }
+        for ( Module module : moduleByOrdinal )
+        {
+            int prerequisites = in.getInt();
+            for ( int p = 0; p < prerequisites; p++ )
+            {
+                module.addPrerequisite( moduleByOrdinal[in.getInt()] );
+            }
+        }
+        int courseCount = in.getInt();
+        for ( int i = 0; i < courseCount; i++ )
+        {
+            String code = getString( in );
+            String name = getString( in );
+            int credits = in.getInt();
+            int module = in.getInt();
+            courses.put( code, new Course( code, name, credits, module >= 0 ? moduleByOrdinal[module] : null ) );
+        }
+    }
+
+    public long getGeneration()
+    {
+        return generation;
+    }
+
+    public int getStudentCount()
+    {
+        return studentCount;
+    }
+
+    public Map<String, Module> getModules()
+    {
+        return modules;
+    }
+
+    public Map<String, Course> getCourses()
+    {
+        return courses;
+    }
+
+    // Decodes one student through the id index without touching any other student record
+    @Override
+    public Student load( String studentId )
+    {
+        int hash = studentId.hashCode();
+        int low = 0;
+        int high = studentCount - 1;
+        while ( low <= high )
+        {
+            int middle = ( low + high ) >>> 1;
+            if ( indexHash( middle ) < hash )
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        for ( int entry = low; entry < studentCount && indexHash( entry ) == hash; entry++ )
+        {
+            int ordinal = buffer.getInt( (int) indexOffset + entry * 8 + 4 );
+            ByteBuffer in = at( studentOffset( ordinal ) );
+            if ( getString( in ).equals( studentId ) )
+            {
+                in.position( (int) studentOffset( ordinal ) );
+                Student student = readStudent( in );
+                loaded.add( student );
+                return student;
+            }
+        }
+        return null;
+    }
+
+    // Lets the student service reject a duplicate email of a student that is not loaded yet
+    @Override
+    public String findIdByEmail( String email )
+    {
+        long[] index = emailIndex();
+        int hash = email.toLowerCase().hashCode();
+        int found = Arrays.binarySearch( index, (long) hash << 32 );
+        int first = found < 0 ? -found - 1 : found;
+        for ( int entry = first; entry < index.length && (int) ( index[entry] >> 32 ) == hash; entry++ )
+        {
+            ByteBuffer in = at( studentOffset( (int) index[entry] ) );
+            String id = getString( in );
+            getString( in );
+            String stored = getString( in );
+            if ( stored != null && stored.equalsIgnoreCase( email ) )
+            {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private synchronized long[] emailIndex()
+    {
+        if ( emailIndex == null )
+        {
+            long[] index = new long[studentCount];
+            int count = 0;
+            ByteBuffer in = buffer.duplicate();
+            for ( int ordinal = 0; ordinal < studentCount; ordinal++ )
+            {
+                in.position( (int) studentOffset( ordinal ) );
+                getString( in );
+                getString( in );
+                String email = getString( in );
+                if ( email != null )
+                {
+                    index[count++] = (long) email.toLowerCase().hashCode() << 32 | ordinal;
+                }
+            }
+            Arrays.sort( index, 0, count );
+            emailIndex = Arrays.copyOf( index, count );
+        }
+        return emailIndex;
+    }
+
+    private int indexHash( int entry )
+    {
+        return buffer.getInt( (int) indexOffset + entry * 8 );
+    }
+
+    private long studentOffset( int ordinal )
+    {
+        return buffer.getLong( (int) offsetsOffset + ordinal * 8 );
+    }
+
+    private Student readStudent( ByteBuffer in )
+    {
+        String id = getString( in );
+        String name = getString( in );
+        String email = getString( in );
+        Student student = new Student( id, name, email, in.getInt() );
+        int enrolled = in.getInt();
+        for ( int i = 0; i < enrolled; i++ )
+        {
+            Course course = courses.get( codes[in.getInt()] );
+            if ( course != null )
+            {
+                student.enrollToCourse( course );
+            }
+        }
+        int graded = in.getInt();
+        for ( int i = 0; i < graded; i++ )
+        {
+            String code = codes[in.getInt()];
+            student.gradeInCourse( code, in.getDouble() );
+        }
+        return student;
+    }
+
+    // Registers the catalog and lets the student service serve stored students on demand
+    public void attach( StudentService studentService, CourseService courseService )
+    {
+        for ( Course course : courses.values() )
+        {
+            courseService.registerCourse( course );
+        }
+        studentService.setStudentSource( this );
+    }
+
+    // Materializes every stored student and the course rosters, then detaches from the service.
+    // Students that were already loaded on demand are kept. Students replaced by newer journal
+    // records keep the enrollments the journal gave them and get none from the stored rosters.
+    public void materialize( StudentService studentService, CourseService courseService )
+    {
+        Student[] byOrdinal = new Student[studentCount];
+        ByteBuffer in = buffer.duplicate();
+        for ( int ordinal = 0; ordinal < studentCount; ordinal++ )
+        {
+            in.position( (int) studentOffset( ordinal ) );
+            Student student = studentService.findStudent( getString( in ) );
+            byOrdinal[ordinal] = loaded.contains( student ) ? student : null;
+        }
+        in.position( (int) rostersOffset );
+        int rosters = in.getInt();
+        for ( int r = 0; r < rosters; r++ )
+        {
+            String code = codes[in.getInt()];
+            int size = in.getInt();
+            for ( int i = 0; i < size; i++ )
+            {
+                Student student = byOrdinal[in.getInt()];
+                if ( student != null )
+                {
+                    courseService.restoreEnrollment( code, student );
+                }
+            }
+        }
+        studentService.setStudentSource( null );
+        loaded.clear();
+    }
+
+    // Writes the full state of both services in one pass over the students
+    public static void write( Path file, long generation, StudentService studentService,
+                              CourseService courseService )
+        throws IOException
+    {
+        try ( FileOutputStream stream = new FileOutputStream( file.toFile() ) )
+        {
+            CountingOutputStream counter = new CountingOutputStream( new BufferedOutputStream( stream, 1 << 16 ) );
+            DataOutputStream out = new DataOutputStream( counter );
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            out.writeLong( generation );
+
+            long modulesOffset = counter.count;
+            writeCatalog( out, courseService );
+
+            Map<Student, Integer> ordinals = new HashMap<>();
+            long[] offsets = new long[16];
+            long[] index = new long[16];
+            int count = 0;
+            for ( Student student : studentService.getStudents().values() )
+            {
+                if ( count == offsets.length )
+                {
+                    offsets = Arrays.copyOf( offsets, count * 2 );
+                    index = Arrays.copyOf( index, count * 2 );
+                }
+                offsets[count] = counter.count;
+                // hash in the high bits so sorting orders the index by hash, ordinal in the low bits
+                index[count] = (long) student.getId().hashCode() << 32 | count;
+                ordinals.put( student, count );
+                writeStudent( out, student );
+                count++;
+            }
+
+            long rostersOffset = counter.count;
+            Map<String, List<Integer>> rosterOrdinals = new LinkedHashMap<>();
+            courseService.forEachEnrollment( ( code, student ) -> {
+                Integer ordinal = ordinals.get( student );
+                if ( ordinal != null )
+                {
+                    rosterOrdinals.computeIfAbsent( code, key -> new ArrayList<>() ).add( ordinal );
+                }
+            } );
+            out.writeInt( rosterOrdinals.size() );
+            for ( Map.Entry<String, List<Integer>> roster : rosterOrdinals.entrySet() )
+            {
+                out.writeInt( CourseCodes.intern( roster.getKey() ) );
+                out.writeInt( roster.getValue().size() );
+                for ( int ordinal : roster.getValue() )
+                {
+                    out.writeInt( ordinal );
+                }
+            }
+
+            long offsetsOffset = counter.count;
+            for ( int i = 0; i < count; i++ )
+            {
+                out.writeLong( offsets[i] );
+            }
+            long indexOffset = counter.count;
+            Arrays.sort( index, 0, count );
+            for ( int i = 0; i < count; i++ )
+            {
+                out.writeInt( (int) ( index[i] >> 32 ) );
+                out.writeInt( (int) index[i] );
+            }
+            long codesOffset = counter.count;
+            int codeCount = CourseCodes.size();
+            out.writeInt( codeCount );
+            for ( int i = 0; i < codeCount; i++ )
+            {
+                putString( out, CourseCodes.codeOf( i ) );
+            }
+
+            out.writeInt( count );
+            out.writeLong( modulesOffset );
+            out.writeLong( rostersOffset );
+            out.writeLong( offsetsOffset );
+            out.writeLong( indexOffset );
+            out.writeLong( codesOffset );
+            out.writeInt( MAGIC );
+            out.flush();
+            stream.getFD().sync();
+        }
+    }
+
+    private static void writeCatalog( DataOutputStream out, CourseService courseService )
+        throws IOException
+    {
+        // collect every module reachable from the courses, including prerequisite modules
+        Map<Module, Integer> moduleOrdinals = new LinkedHashMap<>();
+        List<Module> pending = new ArrayList<>();
+        for ( Course course : courseService.getCourses() )
+        {
+            if ( course.getModule() != null )
+            {
+                pending.add( course.getModule() );
+            }
+        }
+        while ( !pending.isEmpty() )
+        {
+            Module module = pending.remove( pending.size() - 1 );
+            if ( moduleOrdinals.putIfAbsent( module, moduleOrdinals.size() ) == null )
+            {
+                pending.addAll( module.getPrerequisites().values() );
+            }
+        }
+        out.writeInt( moduleOrdinals.size() );
+        for ( Module module : moduleOrdinals.keySet() )
+        {
+            putString( out, module.getCode() );
+            putString( out, module.getName() );
+            putString( out, module.getDescription() );
+        }
+        for ( Module module : moduleOrdinals.keySet() )
+        {
+            out.writeInt( module.getPrerequisites().size() );
+            for ( Module prerequisite : module.getPrerequisites().values() )
+            {
+                out.writeInt( moduleOrdinals.get( prerequisite ) );
+            }
+        }
+        List<Course> courses = new ArrayList<>( courseService.getCourses() );
+        out.writeInt( courses.size() );
+        for ( Course course : courses )
+        {
+            putString( out, course.getCode() );
+            putString( out, course.getName() );
+            out.writeInt( course.getCredits() );
+            out.writeInt( course.getModule() != null ? moduleOrdinals.get( course.getModule() ) : -1 );
+        }
+    }
+
+    private static void writeStudent( DataOutputStream out, Student student )
+        throws IOException
+    {
+        synchronized ( student )
+        {
+            putString( out, student.getId() );
+            putString( out, student.getName() );
+            putString( out, student.getEmail() );
+            out.writeInt( student.getBirthEpochDay() );
+            List<Course> enrolled = student.getApprovedCourses();
+            out.writeInt( enrolled.size() );
+            for ( Course course : enrolled )
+            {
+                out.writeInt( CourseCodes.intern( course.getCode() ) );
+            }
+            int[] courseIds = new int[student.getGradedCourseCount()];
+            double[] grades = new double[courseIds.length];
+            int[] next = { 0 };
+            student.forEachGrade( ( courseId, grade ) -> {
+                courseIds[next[0]] = courseId;
+                grades[next[0]++] = grade;
+            } );
+            out.writeInt( courseIds.length );
+            for ( int i = 0; i < courseIds.length; i++ )
+            {
+                out.writeInt( courseIds[i] );
+                out.writeDouble( grades[i] );
+            }
+        }
+    }
+
+    private ByteBuffer at( long offset )
+    {
+        ByteBuffer in = buffer.duplicate();
+        in.position( (int) offset );
+        return in;
+    }
+
+    private static void putString( DataOutputStream out, String value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            out.writeInt( -1 );
+            return;
+        }
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    // Null for a null string
+    private static String getString( ByteBuffer in )
+    {
+        int length = in.getInt();
+        if ( length < 0 )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    // Tracks the file position while writing so section offsets are known without seeking
+    private static class CountingOutputStream
+        extends FilterOutputStream
+    {
+        private long count;
+
+        CountingOutputStream( OutputStream out )
+        {
+            super( out );
+        }
+
+        @Override
+        public void write( int b )
+            throws IOException
+        {
+            out.write( b );
+            count++;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len )
+            throws IOException
+        {
+            out.write( b, off, len );
+            count += len;
+        }
+    }
+}
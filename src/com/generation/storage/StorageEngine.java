@@ -0,0 +1,319 @@
+package com.generation.storage;
+
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.StudentService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Durable storage for StudentService and CourseService: a binary snapshot (see MappedSnapshot)
+// plus numbered journal files (journal-<generation>.log). On open the snapshot is mapped, the
+// journals it does not cover are replayed and a torn tail is truncated, and the remaining
+// students are materialized in the background; from then on every service mutation is
+// appended to the current journal. A checkpoint switches to a new journal, writes a fresh
+// snapshot and deletes the journals the snapshot made obsolete.
+public class StorageEngine
+    implements Journal, Closeable
+{
+    static final String SNAPSHOT_FILE = "snapshot.dat";
+
+    private static final long CHECKPOINT_THRESHOLD_BYTES = 64L << 20;
+
+    private static final long CHECKPOINT_CHECK_SECONDS = 30;
+
+    private final Path directory;
+
+    private final StudentService studentService;
+
+    private final CourseService courseService;
+
+    // Appends hold the read lock; switching journals holds the write lock
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+
+    private final ScheduledExecutorService checkpointer;
+
+    private WriteAheadLog journal;
+
+    private long generation;
+
+    private final CountDownLatch loaded = new CountDownLatch( 1 );
+
+    private StorageEngine( Path directory, StudentService studentService, CourseService courseService )
+    {
+        this.directory = directory;
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "storage-checkpoint" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    // Recovers the services from the directory and starts journaling their mutations
+    public static StorageEngine open( Path directory, StudentService studentService, CourseService courseService )
+        throws IOException
+    {
+        Files.createDirectories( directory );
+        StorageEngine engine = new StorageEngine( directory, studentService, courseService );
+        engine.recover();
+        studentService.setJournal( engine );
+        courseService.setJournal( engine );
+        engine.checkpointer.scheduleWithFixedDelay( engine::checkpointIfLarge, CHECKPOINT_CHECK_SECONDS,
+                                                    CHECKPOINT_CHECK_SECONDS, TimeUnit.SECONDS );
+        return engine;
+    }
+
+    private void recover()
+        throws IOException
+    {
+        long firstGeneration = 0;
+        Path snapshotPath = directory.resolve( SNAPSHOT_FILE );
+        MappedSnapshot snapshot = null;
+        if ( Files.exists( snapshotPath ) )
+        {
+            // students are served lazily from the mapped file while the journals are replayed
+            snapshot = MappedSnapshot.open( snapshotPath );
+            snapshot.attach( studentService, courseService );
+            firstGeneration = snapshot.getGeneration();
+        }
+        generation = firstGeneration;
+        for ( long journalGeneration : journalGenerations() )
+        {
+            if ( journalGeneration < firstGeneration )
+            {
+                Files.delete( journalPath( journalGeneration ) );
+                continue;
+            }
+            Path path = journalPath( journalGeneration );
+            long validBytes;
+            try ( InputStream input = Files.newInputStream( path ) )
+            {
+                validBytes = JournalCodec.replay( input, studentService, courseService );
+            }
+            // drop a record that was torn by a crash so new appends start on a record boundary
+            try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.WRITE ) )
+            {
+                if ( channel.size() > validBytes )
+                {
+                    channel.truncate( validBytes );
+                    channel.force( true );
+                }
+            }
+            generation = Math.max( generation, journalGeneration );
+        }
+        journal = new WriteAheadLog( journalPath( generation ), true );
+        if ( snapshot != null )
+        {
+            MappedSnapshot loading = snapshot;
+            Thread loader = new Thread( () -> {
+                try
+                {
+                    loading.materialize( studentService, courseService );
+                }
+                finally
+                {
+                    loaded.countDown();
+                }
+            }, "snapshot-loader" );
+            loader.setDaemon( true );
+            loader.start();
+        }
+        else
+        {
+            loaded.countDown();
+        }
+    }
+
+    // Blocks until every stored student is in memory; lookups work before that, full scans do not
+    public void awaitLoaded()
+        throws InterruptedException
+    {
+        loaded.await();
+    }
+
+    private List<Long> journalGenerations()
+        throws IOException
+    {
+        List<Long> generations = new ArrayList<>();
+        try ( DirectoryStream<Path> files = Files.newDirectoryStream( directory, "journal-*.log" ) )
+        {
+            for ( Path file : files )
+            {
+                String name = file.getFileName().toString();
+                generations.add( Long.parseLong( name.substring( "journal-".length(), name.length() - 4 ) ) );
+            }
+        }
+        generations.sort( null );
+        return generations;
+    }
+
+    private Path journalPath( long journalGeneration )
+    {
+        return directory.resolve( "journal-" + journalGeneration + ".log" );
+    }
+
+    private void checkpointIfLarge()
+    {
+        try
+        {
+            if ( currentJournalSize() > CHECKPOINT_THRESHOLD_BYTES )
+            {
+                checkpoint();
+            }
+        }
+        catch ( IOException e )
+        {
+            System.err.println( "Checkpoint failed: " + e.getMessage() );
+        }
+    }
+
+    private long currentJournalSize()
+        throws IOException
+    {
+        journalLock.readLock().lock();
+        try
+        {
+            return journal.size();
+        }
+        finally
+        {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    // Writes a snapshot of the current state and discards the journals it covers
+    public synchronized void checkpoint()
+        throws IOException
+    {
+        WriteAheadLog previous;
+        long snapshotGeneration;
+        journalLock.writeLock().lock();
+        try
+        {
+            previous = journal;
+            snapshotGeneration = generation + 1;
+            journal = new WriteAheadLog( journalPath( snapshotGeneration ), true );
+            generation = snapshotGeneration;
+        }
+        finally
+        {
+            journalLock.writeLock().unlock();
+        }
+        previous.close();
+
+        // a snapshot taken before the previous one is fully loaded would miss students
+        try
+        {
+            awaitLoaded();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted waiting for the snapshot to load", e );
+        }
+
+        // Mutations racing with the snapshot are also in the new journal and are replayed on top
+        Path temporary = directory.resolve( SNAPSHOT_FILE + ".tmp" );
+        MappedSnapshot.write( temporary, snapshotGeneration, studentService, courseService );
+        Files.move( temporary, directory.resolve( SNAPSHOT_FILE ), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE );
+        for ( long journalGeneration : journalGenerations() )
+        {
+            if ( journalGeneration < snapshotGeneration )
+            {
+                Files.deleteIfExists( journalPath( journalGeneration ) );
+            }
+        }
+    }
+
+    @Override
+    public void studentSubscribed( Student student )
+    {
+        journalLock.readLock().lock();
+        try
+        {
+            journal.studentSubscribed( student );
+        }
+        finally
+        {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void studentEnrolled( String studentId, String courseCode )
+    {
+        journalLock.readLock().lock();
+        try
+        {
+            journal.studentEnrolled( studentId, courseCode );
+        }
+        finally
+        {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void courseEnrollment( String courseCode, String studentId )
+    {
+        journalLock.readLock().lock();
+        try
+        {
+            journal.courseEnrollment( courseCode, studentId );
+        }
+        finally
+        {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void studentGraded( String studentId, String courseCode, double grade )
+    {
+        journalLock.readLock().lock();
+        try
+        {
+            journal.studentGraded( studentId, courseCode, grade );
+        }
+        finally
+        {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        checkpointer.shutdownNow();
+        studentService.setJournal( Journal.NONE );
+        courseService.setJournal( Journal.NONE );
+        journalLock.writeLock().lock();
+        try
+        {
+            journal.close();
+        }
+        finally
+        {
+            journalLock.writeLock().unlock();
+        }
+    }
+}
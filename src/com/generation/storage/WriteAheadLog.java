@@ -0,0 +1,288 @@
+package com.generation.storage;
+
+import com.generation.model.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Append-only journal file with group commit. Appenders copy their record into a shared buffer;
+// a single flusher thread writes whatever accumulated since the previous flush and fsyncs once for
+// the whole group. With waitForSync the appender blocks until its record is durable, so each
+// mutation is still durable when it returns but many mutations share one fsync.
+public class WriteAheadLog
+    implements Journal, Closeable
+{
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final boolean waitForSync;
+
+    private final Object lock = new Object();
+
+    private final Thread flusher;
+
+    // Records waiting for the next flush, guarded by lock
+    private ByteBuffer pending = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+
+    private ByteBuffer spare = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+
+    private long appendedSequence;
+
+    private long durableSequence;
+
+    private long syncCount;
+
+    private boolean closed;
+
+    private IOException failure;
+
+    public WriteAheadLog( Path path, boolean waitForSync )
+        throws IOException
+    {
+        this.path = path;
+        this.waitForSync = waitForSync;
+        this.channel = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                         StandardOpenOption.APPEND );
+        if ( channel.size() == 0 )
+        {
+            ByteBuffer header = ByteBuffer.wrap( JournalCodec.header() );
+            while ( header.hasRemaining() )
+            {
+                channel.write( header );
+            }
+            channel.force( true );
+        }
+        this.flusher = new Thread( this::flushLoop, "wal-flusher" );
+        flusher.setDaemon( true );
+        flusher.start();
+    }
+
+    @Override
+    public void studentSubscribed( Student student )
+    {
+        append( JournalCodec.subscribe( student ) );
+    }
+
+    @Override
+    public void studentEnrolled( String studentId, String courseCode )
+    {
+        append( JournalCodec.enrollment( JournalCodec.STUDENT_ENROLLED, studentId, courseCode ) );
+    }
+
+    @Override
+    public void courseEnrollment( String courseCode, String studentId )
+    {
+        append( JournalCodec.enrollment( JournalCodec.COURSE_ENROLLMENT, courseCode, studentId ) );
+    }
+
+    @Override
+    public void studentGraded( String studentId, String courseCode, double grade )
+    {
+        append( JournalCodec.grade( studentId, courseCode, grade ) );
+    }
+
+    private void append( byte[] record )
+    {
+        long sequence;
+        synchronized ( lock )
+        {
+            checkUsable();
+            if ( pending.remaining() < record.length )
+            {
+                ByteBuffer larger = ByteBuffer.allocate( Math.max( pending.capacity() * 2,
+                                                                   pending.position() + record.length ) );
+                pending.flip();
+                larger.put( pending );
+                pending = larger;
+            }
+            pending.put( record );
+            sequence = ++appendedSequence;
+            lock.notifyAll();
+            if ( !waitForSync )
+            {
+                return;
+            }
+            while ( durableSequence < sequence )
+            {
+                if ( failure != null )
+                {
+                    throw new UncheckedIOException( "Journal " + path + " failed", failure );
+                }
+                try
+                {
+                    lock.wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException( new IOException( "Interrupted waiting for journal sync" ) );
+                }
+            }
+        }
+    }
+
+    private void checkUsable()
+    {
+        if ( failure != null )
+        {
+            throw new UncheckedIOException( "Journal " + path + " failed", failure );
+        }
+        if ( closed )
+        {
+            throw new IllegalStateException( "Journal " + path + " is closed" );
+        }
+    }
+
+    private void flushLoop()
+    {
+        while ( true )
+        {
+            ByteBuffer batch;
+            long batchSequence;
+            synchronized ( lock )
+            {
+                while ( pending.position() == 0 && !closed )
+                {
+                    try
+                    {
+                        lock.wait();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        return;
+                    }
+                }
+                if ( pending.position() == 0 )
+                {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                batchSequence = appendedSequence;
+            }
+            IOException error = null;
+            try
+            {
+                batch.flip();
+                while ( batch.hasRemaining() )
+                {
+                    channel.write( batch );
+                }
+                channel.force( false );
+            }
+            catch ( IOException e )
+            {
+                error = e;
+            }
+            synchronized ( lock )
+            {
+                batch.clear();
+                spare = batch;
+                if ( error != null )
+                {
+                    failure = error;
+                }
+                else
+                {
+                    durableSequence = batchSequence;
+                    syncCount++;
+                }
+                lock.notifyAll();
+                if ( error != null )
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Blocks until everything appended so far is on disk
+    public void sync()
+        throws IOException
+    {
+        synchronized ( lock )
+        {
+            long target = appendedSequence;
+            while ( durableSequence < target && failure == null )
+            {
+                try
+                {
+                    lock.wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException( "Interrupted waiting for journal sync", e );
+                }
+            }
+            if ( failure != null )
+            {
+                throw failure;
+            }
+        }
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    public long size()
+        throws IOException
+    {
+        return channel.size();
+    }
+
+    // Number of records appended and number of fsyncs issued; their ratio is the group commit factor
+    public long getAppendedRecords()
+    {
+        synchronized ( lock )
+        {
+            return appendedSequence;
+        }
+    }
+
+    public long getSyncCount()
+    {
+        synchronized ( lock )
+        {
+            return syncCount;
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        synchronized ( lock )
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try
+        {
+            flusher.join();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+}
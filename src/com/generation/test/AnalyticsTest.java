@@ -0,0 +1,61 @@
+package com.generation.test;
+
+import com.generation.analytics.AnalyticsEngine;
+import com.generation.analytics.AnalyticsReport;
+import com.generation.analytics.GradeSnapshot;
+import com.generation.model.Course;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class AnalyticsTest {
+
+    @Test
+    @DisplayName("Sequential and fork-join analytics agree with the services' own aggregates.")
+    void parallelMatchesSequential() {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        StudentService studentService = new StudentService(enrollments);
+        CourseService courseService = new CourseService(enrollments);
+        Random random = new Random(3);
+        String[] codes = {"INTRO-CS-1", "INTRO-CS-2", "INTRO-WEB-1"};
+        for (int i = 0; i < 100_000; i++) {
+            Student student = new Student("A" + i, "Student " + i, "a" + i + "@example.com",
+                    LocalDate.of(1990 + i % 10, 6, 15));
+            studentService.subscribeStudent(student);
+            Course course = courseService.getCourse(codes[i % codes.length]);
+            courseService.enrollStudent(course.getCode(), student);
+            student.gradeInCourse(course.getCode(), random.nextInt(101));
+        }
+
+        GradeSnapshot snapshot = GradeSnapshot.of(studentService);
+        AnalyticsReport sequential = AnalyticsEngine.sequential().analyze(snapshot, courseService);
+        AnalyticsReport parallel = AnalyticsEngine.parallel().analyze(snapshot, courseService);
+
+        for (String code : codes) {
+            assertEquals(studentService.getCourseAverageGrade(code), sequential.getCourseAverage(code), 1e-6);
+            assertEquals(sequential.getCourseAverage(code), parallel.getCourseAverage(code), 1e-6);
+            assertEquals(sequential.getCoursePassRate(code), parallel.getCoursePassRate(code), 1e-12);
+        }
+        assertEquals(2, parallel.getModules().size());
+        assertEquals(sequential.getModules().get("INTRO-CS").getAverage(),
+                parallel.getModules().get("INTRO-CS").getAverage(), 1e-6);
+
+        // ten birth years of 10,000 students each; the dummy students fall into their own cohorts
+        assertEquals(10_000, parallel.getCohorts().get(1995).getStudentCount());
+        assertEquals(100_003, parallel.getOverall().getStudentCount());
+        assertEquals(100_000, parallel.getOverall().getGradeCount());
+        assertEquals(sequential.getOverall().getCreditCompletion(),
+                parallel.getOverall().getCreditCompletion(), 1e-12);
+        assertEquals(sequential.getOverall().getPassRate(), parallel.getOverall().getPassRate(), 1e-12);
+    }
+
+}
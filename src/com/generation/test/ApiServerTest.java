@@ -0,0 +1,77 @@
+package com.generation.test;
+
+import com.generation.http.ApiServer;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ApiServerTest {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    @DisplayName("Students can be subscribed, enrolled, graded and found over HTTP.")
+    void subscribeEnrollGradeFind() throws Exception {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        StudentService studentService = new StudentService(enrollments);
+        CourseService courseService = new CourseService(enrollments);
+        try (ApiServer server = ApiServer.start(0, studentService, courseService)) {
+            String base = "http://localhost:" + server.getPort();
+
+            HttpResponse<String> created = post(base + "/students",
+                    "id=100&name=Ana+%22Q%22&email=ana%40example.com&birthDate=29/02/2000");
+            assertEquals(201, created.statusCode());
+            assertEquals("{\"id\":\"100\",\"name\":\"Ana \\\"Q\\\"\",\"email\":\"ana@example.com\","
+                    + "\"birthDate\":\"2000-02-29\",\"average\":null,\"courses\":[]}", created.body());
+            assertEquals(409, post(base + "/students",
+                    "id=101&name=B&email=ANA@example.com&birthDate=01/01/2000").statusCode());
+
+            assertEquals(409, post(base + "/grades", "studentId=100&courseCode=INTRO-CS-1").statusCode());
+            assertEquals(200, post(base + "/enrollments", "studentId=100&courseCode=INTRO-CS-1").statusCode());
+            HttpResponse<String> graded = post(base + "/grades", "studentId=100&courseCode=INTRO-CS-1&grade=77.5");
+            assertEquals("{\"studentId\":\"100\",\"courseCode\":\"INTRO-CS-1\",\"grade\":77.50,\"passed\":true,"
+                    + "\"average\":77.50}", graded.body());
+            assertEquals(77.5, studentService.findStudent("100").getGrade("INTRO-CS-1"));
+
+            HttpResponse<String> found = get(base + "/students/100");
+            assertEquals(200, found.statusCode());
+            assertTrue(found.body().endsWith("\"average\":77.50,\"courses\":[{\"code\":\"INTRO-CS-1\",\"grade\":77.50}]}"));
+            assertEquals("{\"courseCode\":\"INTRO-CS-1\",\"average\":77.50,\"graded\":1}",
+                    get(base + "/courses/INTRO-CS-1/average").body());
+
+            assertEquals(404, get(base + "/students/999").statusCode());
+            assertEquals(404, get(base + "/courses/NOPE/average").statusCode());
+            assertEquals(405, post(base + "/courses", "").statusCode());
+            assertEquals(400, get(base + "/students?limit=0").statusCode());
+            String tomorrow = LocalDate.now().plusDays(1).format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+            HttpResponse<String> future = post(base + "/students",
+                    "id=102&name=C&email=c@example.com&birthDate=" + tomorrow);
+            assertEquals(400, future.statusCode());
+            assertNull(studentService.findStudent("102"));
+        }
+    }
+
+    private HttpResponse<String> get(String uri) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String uri, String form) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
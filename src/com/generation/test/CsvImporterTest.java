@@ -0,0 +1,61 @@
+package com.generation.test;
+
+import com.generation.importer.CsvImporter;
+import com.generation.importer.ImportReport;
+import com.generation.model.Course;
+import com.generation.model.Module;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class CsvImporterTest {
+
+    @Test
+    @DisplayName("Rows are applied in file order and rows the services reject are reported without aborting.")
+    void fileOrderAndRowErrors() throws Exception {
+        Module basics = new Module("BASICS", "Basics", "");
+        Module web = new Module("WEB", "Web", "");
+        web.addPrerequisite(basics);
+        CourseService courseService = new CourseService(new EnrollmentIndex());
+        courseService.registerCourse(new Course("BASICS-1", "Basics 1", 5, basics));
+        courseService.registerCourse(new Course("WEB-1", "Web 1", 5, web));
+        StudentService studentService = new StudentService(courseService.getEnrollments());
+
+        // tiny batches on several threads, so the rows of one id are spread over many batches
+        StringBuilder students = new StringBuilder("id,name,email,birthDate\n");
+        for (int i = 0; i < 50; i++) {
+            students.append("C1,Version ").append(i).append(",c1-").append(i).append("@example.com,01/01/2000\n");
+        }
+        students.append("C2,Taken,c1-49@example.com,01/01/2000\n");
+        StringBuilder grades = new StringBuilder();
+        for (int i = 0; i <= 60; i++) {
+            grades.append("C1,BASICS-1,").append(i).append('\n');
+        }
+        String enrollments = "C1,BASICS-1\nC1,WEB-1\nC1,BASICS-1\n";
+
+        try (CsvImporter importer = new CsvImporter(studentService, courseService, 4, 2)) {
+            ImportReport studentReport = importer.importStudents("students", new StringReader(students.toString()));
+            assertEquals("Version 49", studentService.findStudent("C1").getName());
+            assertEquals(50, studentReport.getRowsImported());
+            assertEquals(1, studentReport.getRowsRejected());
+            assertEquals(52, studentReport.getErrors().get(0).getLineNumber());
+            assertFalse(studentService.isSubscribed("C2"));
+
+            ImportReport enrollmentReport = importer.importEnrollments("enrollments", new StringReader(enrollments));
+            assertEquals(2, enrollmentReport.getRowsImported());
+            assertEquals(2, enrollmentReport.getErrors().get(0).getLineNumber());
+            assertTrue(studentService.findStudent("C1").isAttendingCourse("BASICS-1"));
+            assertFalse(studentService.findStudent("C1").isAttendingCourse("WEB-1"));
+
+            importer.importGrades("grades", new StringReader(grades.toString()));
+            assertEquals(60.0, studentService.findStudent("C1").getGrade("BASICS-1"), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.generation.test;
+
+import com.generation.model.GradeStatistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class GradeStatisticsTest {
+
+    @Test
+    @DisplayName("min and max are found again once the extreme grade is removed.")
+    void extremesAfterRemoval() {
+        GradeStatistics statistics = new GradeStatistics();
+        assertEquals(-1, statistics.getMin());
+        statistics.add(55.25);
+        statistics.add(70.0);
+        statistics.add(91.5);
+        statistics.add(91.5);
+        assertEquals(55.25, statistics.getMin(), 1e-9);
+        assertEquals(91.5, statistics.getMax(), 1e-9);
+
+        statistics.remove(91.5);
+        assertEquals(91.5, statistics.getMax(), 1e-9);
+        statistics.remove(91.5);
+        assertEquals(70.0, statistics.getMax(), 1e-9);
+        statistics.replace(55.25, 80.0);
+        assertEquals(70.0, statistics.getMin(), 1e-9);
+        assertEquals(80.0, statistics.getMax(), 1e-9);
+        assertEquals(2, statistics.getCount());
+    }
+
+    @Test
+    @DisplayName("A removal is only kept as a negative count while a batch could still add the grade.")
+    void rejectsNegativeCounts() {
+        GradeStatistics statistics = new GradeStatistics();
+        statistics.add(60.0);
+        assertThrows(IllegalStateException.class, () -> statistics.remove(75.0));
+
+        // the batch grades 75 first, but another update replaces it before the batch is applied
+        GradeStatistics batch = statistics.openBatch();
+        batch.replace(60.0, 75.0);
+        statistics.replace(75.0, 90.0);
+        assertEquals(90.0, statistics.getMax(), 1e-9);
+        statistics.apply(batch);
+        assertEquals(1, statistics.getCount());
+        assertEquals(90.0, statistics.getMin(), 1e-9);
+        assertEquals(90.0, statistics.getAverage(), 1e-9);
+
+        GradeStatistics unsettled = statistics.openBatch();
+        statistics.remove(10.0);
+        assertThrows(IllegalStateException.class, () -> statistics.apply(unsettled));
+    }
+}
@@ -0,0 +1,62 @@
+package com.generation.test;
+
+import com.generation.model.CourseCodes;
+import com.generation.model.GradeTable;
+import com.generation.model.Student;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class GradeTableTest {
+
+    @Test
+    @DisplayName("The columnar table follows grades, regrades and replaced students.")
+    void followsMutations() {
+        StudentService studentService = new StudentService();
+        GradeTable table = studentService.getGradeTable();
+        int course = CourseCodes.intern("INTRO-CS-3");
+        Random random = new Random(11);
+        double[] grades = new double[5_000];
+        for (int i = 0; i < grades.length; i++) {
+            Student student = new Student("T" + i, "Student " + i, "t" + i + "@example.com", LocalDate.EPOCH);
+            studentService.subscribeStudent(student);
+            grades[i] = random.nextInt(10_001) / 100.0;
+            student.gradeInCourse("INTRO-CS-3", grades[i]);
+        }
+        // regrade every other student, then replace every fifth one with an ungraded copy
+        for (int i = 0; i < grades.length; i += 2) {
+            grades[i] = random.nextInt(10_001) / 100.0;
+            studentService.findStudent("T" + i).gradeInCourse("INTRO-CS-3", grades[i]);
+        }
+        for (int i = 0; i < grades.length; i += 5) {
+            studentService.subscribeStudent(new Student("T" + i, "Student " + i, "t" + i + "@example.com", LocalDate.EPOCH));
+            grades[i] = Double.NaN;
+        }
+
+        int count = 0;
+        double sum = 0;
+        int passed = 0;
+        int[] histogram = new int[4];
+        for (double grade : grades) {
+            if (!Double.isNaN(grade)) {
+                count++;
+                sum += grade;
+                passed += grade >= 50 ? 1 : 0;
+                histogram[Math.min(3, (int) (grade / 25))]++;
+            }
+        }
+        assertEquals(count, table.getGradeCount(course));
+        assertEquals(sum / count, table.getAverage(course), 1e-9);
+        assertEquals(studentService.getCourseAverageGrade("INTRO-CS-3"), table.getAverage(course), 1e-9);
+        assertEquals((double) passed / count, table.getPassRate(course, 50), 1e-12);
+        assertArrayEquals(histogram, table.histogram(course, 4));
+        assertEquals(-1.0, table.getAverage(CourseCodes.intern("NEVER-GRADED")), 1e-9);
+    }
+
+}
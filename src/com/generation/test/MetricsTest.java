@@ -0,0 +1,85 @@
+package com.generation.test;
+
+import com.generation.metrics.LatencyHistogram;
+import com.generation.metrics.Metrics;
+import com.generation.metrics.Timer;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class MetricsTest {
+
+    @Test
+    @DisplayName("Histogram quantiles stay within the bucket precision of the exact values.")
+    void histogramQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(5);
+        long[] values = new long[100_000];
+        long total = 0;
+        for (int i = 0; i < values.length; i++) {
+            // log-uniform between 1 ns and about 1 s
+            values[i] = (long) Math.exp(random.nextDouble() * 20.7);
+            histogram.record(values[i]);
+            total += values[i];
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(total, histogram.getTotalNanos());
+        assertEquals(values[values.length - 1], histogram.getMaxNanos());
+        for (double quantile : new double[]{0.01, 0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long estimate = histogram.getValueAtQuantile(quantile);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 16 + 1,
+                    "quantile " + quantile + ": " + estimate + " vs " + exact);
+        }
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtQuantile(0.5));
+    }
+
+    @Test
+    @DisplayName("Service calls are timed while metrics are enabled and dumped in Prometheus format.")
+    void serviceTimers() {
+        StudentService studentService = new StudentService();
+        Timer timer = Metrics.timer("StudentService.findStudent");
+        boolean enabled = Metrics.isEnabled();
+        int sampleEvery = Metrics.getSampleEvery();
+        try {
+            Metrics.setEnabled(false);
+            long before = timer.getCount();
+            studentService.findStudent("001");
+            assertEquals(before, timer.getCount());
+
+            // every call is counted, one in eight is timed on average
+            Metrics.setEnabled(true);
+            Metrics.setSampleEvery(8);
+            long timedBefore = timer.getHistogram().getCount();
+            for (int i = 0; i < 8_000; i++) {
+                studentService.findStudent(i % 2 == 0 ? "001" : "404");
+            }
+            assertEquals(before + 8_000, timer.getCount());
+            long timed = timer.getHistogram().getCount() - timedBefore;
+            assertTrue(timed > 700 && timed < 1_300, "timed " + timed);
+
+            Metrics.setSampleEvery(1);
+            studentService.findStudent("001");
+            assertEquals(timedBefore + timed + 1, timer.getHistogram().getCount());
+        } finally {
+            Metrics.setEnabled(enabled);
+            Metrics.setSampleEvery(sampleEvery);
+        }
+        String dump = Metrics.dump();
+        assertTrue(dump.contains("# TYPE studentgen_operation_duration_seconds summary\n"));
+        assertTrue(dump.contains(
+                "studentgen_operation_duration_seconds{operation=\"StudentService.findStudent\",quantile=\"0.99\"} "));
+        assertTrue(dump.contains("studentgen_operation_duration_seconds_count{operation=\"StudentService.findStudent\"} "
+                + timer.getCount() + "\n"));
+        assertTrue(dump.contains("# TYPE studentgen_grades_recorded_total counter\n"));
+    }
+}
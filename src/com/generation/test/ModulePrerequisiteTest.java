@@ -0,0 +1,65 @@
+package com.generation.test;
+
+import com.generation.model.Course;
+import com.generation.model.Module;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ModulePrerequisiteTest {
+
+    @Test
+    @DisplayName("Prerequisites are transitive and an edge that closes a cycle is rejected.")
+    void transitiveClosureAndCycles() {
+        Module basics = new Module("BASICS", "Basics", "");
+        Module web = new Module("WEB", "Web", "");
+        Module frameworks = new Module("FRAMEWORKS", "Frameworks", "");
+        web.addPrerequisite(basics);
+        frameworks.addPrerequisite(web);
+
+        assertTrue(frameworks.requires(basics));
+        assertTrue(frameworks.requires(web));
+        assertFalse(basics.requires(frameworks));
+        assertEquals(2, frameworks.getRequiredModules().size());
+
+        assertThrows(IllegalArgumentException.class, () -> basics.addPrerequisite(frameworks));
+        assertThrows(IllegalArgumentException.class, () -> basics.addPrerequisite(basics));
+        assertFalse(basics.requires(frameworks));
+    }
+
+    @Test
+    @DisplayName("Enrollment requires every course of the prerequisite modules to be passed.")
+    void enrollmentChecksPassedCourses() {
+        Module basics = new Module("BASICS", "Basics", "");
+        Module web = new Module("WEB", "Web", "");
+        web.addPrerequisite(basics);
+        CourseService courseService = new CourseService(new EnrollmentIndex());
+        courseService.registerCourse(new Course("BASICS-1", "Basics 1", 5, basics));
+        courseService.registerCourse(new Course("BASICS-2", "Basics 2", 5, basics));
+        courseService.registerCourse(new Course("WEB-1", "Web 1", 5, web));
+        StudentService studentService = new StudentService(courseService.getEnrollments());
+        Student student = new Student("S1", "Ada", "ada@example.com", LocalDate.EPOCH);
+        studentService.subscribeStudent(student);
+
+        assertThrows(IllegalArgumentException.class, () -> courseService.enrollStudent("WEB-1", student));
+        assertFalse(student.isAttendingCourse("WEB-1"));
+
+        student.gradeInCourse("BASICS-1", 80.0);
+        student.gradeInCourse("BASICS-2", 45.0);
+        assertEquals(basics, student.findMissingPrerequisite(courseService.getCourse("WEB-1")));
+
+        student.gradeInCourse("BASICS-2", 65.0);
+        courseService.enrollStudent("WEB-1", student);
+        assertTrue(student.isAttendingCourse("WEB-1"));
+        assertEquals(1, courseService.getEnrolledCount("WEB-1"));
+    }
+
+}
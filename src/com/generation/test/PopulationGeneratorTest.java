@@ -0,0 +1,86 @@
+package com.generation.test;
+
+import com.generation.generator.PopulationGenerator;
+import com.generation.importer.CsvImporter;
+import com.generation.importer.ImportReport;
+import com.generation.model.Course;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class PopulationGeneratorTest {
+
+    private static final int STUDENTS = 12_000;
+
+    @Test
+    @DisplayName("The same seed gives the same files for any number of threads, and they import like generate().")
+    void deterministicAndImportable() throws Exception {
+        Path single = Files.createTempDirectory("population-1");
+        Path multi = Files.createTempDirectory("population-3");
+        try {
+            PopulationGenerator generator = new PopulationGenerator(7, STUDENTS);
+            generator.setThreads(1);
+            generator.writeCsv(single);
+            generator.setThreads(3);
+            generator.writeCsv(multi);
+            for (String file : new String[]{PopulationGenerator.STUDENTS_FILE, "enrollments-0.csv", "grades-3.csv"}) {
+                assertArrayEquals(Files.readAllBytes(single.resolve(file)), Files.readAllBytes(multi.resolve(file)));
+            }
+
+            EnrollmentIndex generatedIndex = new EnrollmentIndex();
+            StudentService generated = new StudentService(generatedIndex);
+            CourseService generatedCourses = new CourseService(generatedIndex);
+            generator.generate(generated, generatedCourses);
+
+            EnrollmentIndex importedIndex = new EnrollmentIndex();
+            StudentService imported = new StudentService(importedIndex);
+            CourseService importedCourses = new CourseService(importedIndex);
+            try (CsvImporter importer = new CsvImporter(imported, importedCourses)) {
+                for (ImportReport report : generator.importCsv(single, importer, importedCourses)) {
+                    assertEquals(0, report.getRowsRejected(), report.toString());
+                }
+            }
+
+            assertEquals(STUDENTS + 3, generated.getStudents().size());
+            assertEquals(STUDENTS + 3, imported.getStudents().size());
+            int gradedCourses = 0;
+            for (Course course : generator.getCourses()) {
+                assertEquals(generatedCourses.getEnrolledCount(course.getCode()),
+                        importedCourses.getEnrolledCount(course.getCode()));
+                double average = generated.getCourseAverageGrade(course.getCode());
+                assertEquals(average, imported.getCourseAverageGrade(course.getCode()), 1e-9);
+                gradedCourses += average >= 0 ? 1 : 0;
+            }
+            // every level is reached by someone
+            assertEquals(generator.getCourses().size(), gradedCourses);
+            for (int i = 0; i < STUDENTS; i += 997) {
+                Student a = generated.findStudent("G" + i);
+                Student b = imported.findStudent("G" + i);
+                assertEquals(a.getEmail(), b.getEmail());
+                assertEquals(a.getBirthDate(), b.getBirthDate());
+                assertEquals(a.getAverage(), b.getAverage());
+                assertEquals(a.getPassedCredits(), b.getPassedCredits());
+            }
+        } finally {
+            delete(single);
+            delete(multi);
+        }
+    }
+
+    private static void delete(Path directory) throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
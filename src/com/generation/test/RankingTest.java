@@ -0,0 +1,115 @@
+package com.generation.test;
+
+import com.generation.model.Ranking;
+import com.generation.model.Student;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class RankingTest {
+
+    @Test
+    @DisplayName("Rank, percentile and histogram match a brute-force count, including replaced scores.")
+    void matchesBruteForce() {
+        Random random = new Random(7);
+        int students = 2_000;
+        double[] scores = new double[students];
+        Student[] all = new Student[students];
+        Ranking ranking = new Ranking(new Ranking.Scores() {
+            @Override
+            public double scoreOf(String studentId) {
+                return studentId.startsWith("S") ? scores[Integer.parseInt(studentId.substring(1))] : Double.NaN;
+            }
+
+            @Override
+            public Student studentOf(int handle) {
+                for (Student student : all) {
+                    if (student != null && student.getHandle() == handle) {
+                        return student;
+                    }
+                }
+                return null;
+            }
+        }, 4);
+        for (int i = 0; i < students; i++) {
+            all[i] = new Student("S" + i, "Student " + i, "s" + i + "@example.com", LocalDate.EPOCH);
+            // coarse scores so that ties are common
+            scores[i] = random.nextInt(2_001) / 20.0;
+            ranking.add(all[i], scores[i]);
+        }
+        for (int i = 0; i < students; i += 3) {
+            double previous = scores[i];
+            scores[i] = random.nextInt(2_001) / 20.0;
+            ranking.replace(all[i], previous, scores[i]);
+        }
+
+        assertEquals(students, ranking.size());
+        for (int i = 0; i < students; i += 7) {
+            int above = 0;
+            int below = 0;
+            for (double other : scores) {
+                above += other > scores[i] ? 1 : 0;
+                below += other < scores[i] ? 1 : 0;
+            }
+            assertEquals(above + 1, ranking.rankOf("S" + i));
+            assertEquals(100.0 * below / students, ranking.percentileOf("S" + i), 1e-9);
+        }
+
+        int[] histogram = ranking.histogram(10);
+        for (int bin = 0; bin < 10; bin++) {
+            int expected = 0;
+            for (double score : scores) {
+                expected += Math.min(9, (int) (score / 10)) == bin ? 1 : 0;
+            }
+            assertEquals(expected, histogram[bin]);
+        }
+
+        // the top list is the brute-force order: highest score first, then by id
+        List<Student> sorted = new ArrayList<>(Arrays.asList(all));
+        sorted.sort(Comparator.comparingDouble((Student student) -> -ranking.getScore(student.getId()))
+                .thenComparing(Student::getId));
+        assertEquals(sorted.subList(0, 50), ranking.top(50));
+        assertEquals(students, ranking.top(students + 10).size());
+        assertEquals(-1, ranking.rankOf("missing"));
+    }
+
+    @Test
+    @DisplayName("StudentService keeps course and average rankings up to date on every grade.")
+    void serviceRankings() {
+        StudentService studentService = new StudentService();
+        studentService.findStudent("001").gradeInCourse("INTRO-CS-1", 70.0);
+        studentService.findStudent("002").gradeInCourse("INTRO-CS-1", 90.0);
+        studentService.findStudent("003").gradeInCourse("INTRO-CS-1", 80.0);
+        studentService.findStudent("001").gradeInCourse("INTRO-CS-2", 100.0);
+
+        Ranking course = studentService.getCourseRanking("INTRO-CS-1");
+        assertEquals(1, course.rankOf("002"));
+        assertEquals(3, course.rankOf("001"));
+
+        // 001 now averages 85, ahead of 003 (80) and behind 002 (90)
+        assertEquals("002", studentService.getTopStudents(1).get(0).getId());
+        assertEquals(2, studentService.getAverageRanking().rankOf("001"));
+
+        studentService.findStudent("001").gradeInCourse("INTRO-CS-1", 95.0);
+        assertEquals(1, course.rankOf("001"));
+        assertEquals("001", studentService.getTopStudents(3).get(0).getId());
+        assertEquals(100.0 * 2 / 3, studentService.getAverageRanking().percentileOf("001"), 1e-9);
+
+        // a replaced student leaves both rankings
+        studentService.subscribeStudent(new Student("003", "Steve Smith", "stevesmith@gmail.com", LocalDate.EPOCH));
+        assertEquals(-1, course.rankOf("003"));
+        assertEquals(2, course.size());
+        assertEquals(2, studentService.getAverageRanking().size());
+    }
+
+}
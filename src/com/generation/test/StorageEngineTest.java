@@ -0,0 +1,131 @@
+package com.generation.test;
+
+import com.generation.model.Course;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.StudentService;
+import com.generation.storage.StorageEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class StorageEngineTest {
+
+    @Test
+    @DisplayName("Students, enrollments and grades survive a restart, before and after a checkpoint.")
+    void recoversAfterRestart() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("studentgen");
+
+        StudentService studentService = new StudentService();
+        CourseService courseService = new CourseService();
+        StorageEngine storage = StorageEngine.open(directory, studentService, courseService);
+        register(studentService, courseService, "100", "INTRO-CS-1", 75.0);
+        storage.checkpoint();
+        register(studentService, courseService, "101", "INTRO-WEB-2", 45.0);
+        // regrading after the checkpoint must win over the snapshot
+        studentService.findStudent("100").gradeInCourse("INTRO-CS-1", 95.0);
+        storage.close();
+
+        StudentService recoveredStudents = new StudentService();
+        CourseService recoveredCourses = new CourseService();
+        StorageEngine recovered = StorageEngine.open(directory, recoveredStudents, recoveredCourses);
+        try {
+            // served lazily from the mapped snapshot
+            Student first = recoveredStudents.findStudent("100");
+            assertNotNull(first);
+            assertTrue(first.isAttendingCourse("INTRO-CS-1"));
+            assertEquals(95.0, first.getGradeForCourse("INTRO-CS-1"), 1e-9);
+            // birth dates are stored as epoch days in both the snapshot and the journal
+            assertEquals(LocalDate.EPOCH, first.getBirthDate());
+            assertEquals(LocalDate.EPOCH, recoveredStudents.findStudent("101").getBirthDate());
+            recovered.awaitLoaded();
+            assertEquals(45.0, recoveredStudents.getCourseAverageGrade("INTRO-WEB-2"), 1e-9);
+            assertTrue(recoveredStudents.findStudent("101").isAttendingCourse("INTRO-WEB-2"));
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Stored data of the seeded students wins over the seeded copies after a restart.")
+    void seededStudentsAfterRestart() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("studentgen");
+
+        StudentService studentService = new StudentService();
+        CourseService courseService = new CourseService();
+        StorageEngine storage = StorageEngine.open(directory, studentService, courseService);
+        register(studentService, courseService, "100", "INTRO-CS-1", 66.0);
+        studentService.enrollToCourse("001", courseService.getCourse("INTRO-CS-1"));
+        studentService.findStudent("001").gradeInCourse("INTRO-CS-1", 77.0);
+        storage.checkpoint();
+        storage.close();
+
+        StudentService recoveredStudents = new StudentService();
+        CourseService recoveredCourses = new CourseService();
+        StorageEngine recovered = StorageEngine.open(directory, recoveredStudents, recoveredCourses);
+        try {
+            // the email of a stored student is taken even before that student is loaded
+            assertThrows(IllegalArgumentException.class, () -> recoveredStudents.subscribeStudent(
+                    new Student("200", "Student 200", "100@example.com", LocalDate.EPOCH)));
+            recovered.awaitLoaded();
+            assertEquals(77.0, recoveredStudents.findStudent("001").getGradeForCourse("INTRO-CS-1"), 1e-9);
+            assertEquals(71.5, recoveredStudents.getCourseAverageGrade("INTRO-CS-1"), 1e-9);
+            assertFalse(recoveredStudents.isSubscribed("200"));
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A student subscribed again after a checkpoint does not get its stored enrollments back.")
+    void resubscribedStudentAfterRestart() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("studentgen");
+        String longName = "N".repeat(70_000);
+
+        CourseService courseService = new CourseService(new EnrollmentIndex());
+        StudentService studentService = new StudentService(courseService.getEnrollments());
+        StorageEngine storage = StorageEngine.open(directory, studentService, courseService);
+        register(studentService, courseService, "100", "INTRO-CS-1", 66.0);
+        studentService.subscribeStudent(new Student("101", longName, "101@example.com", LocalDate.EPOCH));
+        // a missing email stays missing in the snapshot and in the journal
+        studentService.subscribeStudent(new Student("102", "No Email", null, LocalDate.EPOCH));
+        storage.checkpoint();
+        studentService.subscribeStudent(new Student("103", "No Email", null, LocalDate.EPOCH));
+        studentService.subscribeStudent(new Student("100", "Student 100", "100@example.com", LocalDate.EPOCH));
+        assertTrue(courseService.getEnrolledStudents("INTRO-CS-1").isEmpty());
+        storage.close();
+
+        CourseService recoveredCourses = new CourseService(new EnrollmentIndex());
+        StudentService recoveredStudents = new StudentService(recoveredCourses.getEnrollments());
+        StorageEngine recovered = StorageEngine.open(directory, recoveredStudents, recoveredCourses);
+        try {
+            recovered.awaitLoaded();
+            assertFalse(recoveredStudents.findStudent("100").isAttendingCourse("INTRO-CS-1"));
+            assertTrue(recoveredCourses.getEnrolledStudents("INTRO-CS-1").isEmpty());
+            // longer than an unsigned short length prefix can hold
+            assertEquals(longName, recoveredStudents.findStudent("101").getName());
+            assertNull(recoveredStudents.findStudent("102").getEmail());
+            assertNull(recoveredStudents.findStudent("103").getEmail());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private static void register(StudentService studentService, CourseService courseService, String id,
+                                 String courseCode, double grade) {
+        Course course = courseService.getCourse(courseCode);
+        studentService.subscribeStudent(new Student(id, "Student " + id, id + "@example.com", LocalDate.EPOCH));
+        studentService.enrollToCourse(id, course);
+        courseService.enrollStudent(courseCode, studentService.findStudent(id));
+        studentService.findStudent(id).gradeInCourse(courseCode, grade);
+    }
+
+}
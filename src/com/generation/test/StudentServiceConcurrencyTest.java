@@ -0,0 +1,136 @@
+package com.generation.test;
+
+import com.generation.model.Course;
+import com.generation.model.GradeStatistics;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.StudentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class StudentServiceConcurrencyTest {
+
+    private static final int STUDENTS_PER_THREAD = 20_000;
+
+    private StudentService studentService;
+
+    private CourseService courseService;
+
+    @BeforeEach
+    void setUp() {
+        studentService = new StudentService();
+        courseService = new CourseService();
+    }
+
+    @Test
+    @DisplayName("Concurrent subscribe, enroll and grade keep every student and aggregate consistent.")
+    void concurrentRegistrationAndGrading() throws InterruptedException {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        runWorkload(threads, "C", false);
+
+        // 3 dummy students plus everything registered by the workers
+        assertEquals(3 + threads * STUDENTS_PER_THREAD, studentService.getStudents().size());
+        GradeStatistics statistics = studentService.getCourseStatistics("INTRO-CS-1");
+        assertEquals(threads * STUDENTS_PER_THREAD, statistics.getCount());
+        // every student was graded 40 first and then regraded 80
+        assertEquals(80.0, statistics.getAverage(), 1e-9);
+        assertEquals(80.0, statistics.getMin(), 1e-9);
+        Student student = studentService.findStudent("C0-17");
+        assertTrue(student.isAttendingCourse("INTRO-CS-1"));
+        assertTrue(student.isAttendingCourse("INTRO-WEB-1"));
+    }
+
+    @Test
+    @DisplayName("Of concurrent subscribeIfAbsent calls with one id, exactly one subscribes.")
+    void subscribeIfAbsentOnce() throws InterruptedException {
+        int threads = 8;
+        for (int round = 0; round < 200; round++) {
+            String id = "S" + round;
+            AtomicInteger subscribed = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < threads; t++) {
+                Student student = new Student(id, "Student " + t, id + "-" + t + "@example.com", LocalDate.EPOCH);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (studentService.subscribeIfAbsent(student)) {
+                        subscribed.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+            assertEquals(1, subscribed.get());
+        }
+        assertEquals(3 + 200, studentService.getStudents().size());
+        assertFalse(studentService.subscribeIfAbsent(new Student("001", "Other", "other@example.com", LocalDate.EPOCH)));
+        assertEquals("John Doe", studentService.findStudent("001").getName());
+    }
+
+    @Test
+    @DisplayName("The workload completes consistently at every thread count up to the number of cores.")
+    void scalesAcrossCores() throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            setUp();
+            runWorkload(threads, "T" + threads + "-", true);
+            assertEquals(3 + threads * STUDENTS_PER_THREAD, studentService.getStudents().size());
+            // worker t grades INTRO-CS-(t % 7 + 1), so the first course gets the most workers
+            GradeStatistics statistics = studentService.getCourseStatistics("INTRO-CS-1");
+            assertEquals(((threads + 6) / 7) * STUDENTS_PER_THREAD, statistics.getCount());
+            assertEquals(80.0, statistics.getAverage(), 1e-9);
+        }
+    }
+
+    // Each worker registers its own students, enrolls them in two courses and grades them twice.
+    // With spreadCourses each worker grades a different course, like a realistic mix of requests.
+    private void runWorkload(int threads, String prefix, boolean spreadCourses) throws InterruptedException {
+        Course web = courseService.getCourse("INTRO-WEB-1");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            String threadPrefix = prefix + t + "-";
+            Course cs = courseService.getCourse("INTRO-CS-" + (spreadCourses ? t % 7 + 1 : 1));
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < STUDENTS_PER_THREAD; i++) {
+                    String id = threadPrefix + i;
+                    Student student = new Student(id, "Student " + i, id + "@example.com", LocalDate.EPOCH);
+                    studentService.subscribeStudent(student);
+                    studentService.enrollToCourse(id, cs);
+                    courseService.enrollStudent(cs.getCode(), student);
+                    studentService.enrollToCourse(id, web);
+                    studentService.findStudent(id).gradeInCourse(cs.getCode(), 40.0);
+                    studentService.findStudent(id).gradeInCourse(cs.getCode(), 80.0);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+    }
+
+}
@@ -1,11 +1,22 @@
 package com.generation.test;
 
+import com.generation.model.Course;
+import com.generation.model.GradeStatistics;
 import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.EnrollmentIndex;
+import com.generation.service.GradingResult;
+import com.generation.service.StudentPage;
 import com.generation.service.StudentService;
+import com.generation.service.StudentSort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -48,4 +59,147 @@ public class StudentServiceTest {
         assertFalse(studentService.isSubscribed("004"));
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Course average and variance follow grades, including a replaced grade.")
+    void courseAverageGrade() {
+        // No grades yet
+        assertEquals(-1.0, studentService.getCourseAverageGrade("INTRO-CS-1"), 1e-9);
+
+        studentService.findStudent("001").gradeInCourse("INTRO-CS-1", 60.0);
+        studentService.findStudent("002").gradeInCourse("INTRO-CS-1", 80.0);
+        assertEquals(70.0, studentService.getCourseAverageGrade("INTRO-CS-1"), 1e-9);
+        assertEquals(100.0, studentService.getCourseGradeVariance("INTRO-CS-1"), 1e-9);
+
+        // Grading 001 again replaces the old grade instead of adding a new one
+        studentService.findStudent("001").gradeInCourse("INTRO-CS-1", 90.0);
+        GradeStatistics statistics = studentService.getCourseStatistics("INTRO-CS-1");
+        assertEquals(2, statistics.getCount());
+        assertEquals(85.0, studentService.getCourseAverageGrade("INTRO-CS-1"), 1e-9);
+        assertEquals(80.0, statistics.getMin(), 1e-9);
+        assertEquals(90.0, statistics.getMax(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Batch grading grades enrolled students and counts the skipped ones.")
+    void gradeStudentsInBatch() {
+        Course course = new CourseService().getCourse("INTRO-CS-1");
+        studentService.enrollToCourse("001", course);
+        studentService.enrollToCourse("002", course);
+
+        GradingResult result = studentService.gradeStudents(course, List.of("001", "002", "003", "404"),
+                (student, graded) -> student.getId().equals("001") ? 45.0 : 75.0);
+
+        assertEquals(2, result.getGraded());
+        assertEquals(1, result.getPassed());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getNotEnrolled());
+        assertEquals(1, result.getNotFound());
+        assertEquals(60.0, result.getAverage(), 1e-9);
+        assertEquals(75.0, studentService.findStudent("002").getGrade("INTRO-CS-1"), 1e-9);
+        assertEquals(60.0, studentService.getCourseAverageGrade("INTRO-CS-1"), 1e-9);
+
+        // The predicate variant only visits students enrolled in the course
+        GradingResult regraded = studentService.gradeStudents(course, student -> true);
+        assertEquals(2, regraded.getGraded());
+        assertEquals(0, regraded.getNotEnrolled());
+    }
+
+    @Test
+    @DisplayName("Students can be found by email, name prefix and birth date range.")
+    void secondaryIndexes() {
+        assertEquals("002", studentService.findStudentByEmail("MayFair@gmail.com").getId());
+        assertNull(studentService.findStudentByEmail("nobody@gmail.com"));
+
+        studentService.subscribeStudent(new Student("004", "Steven Stone", "steven@gmail.com", LocalDate.EPOCH));
+        List<Student> steves = studentService.findStudentsByNamePrefix("STEV", 10);
+        assertEquals(2, steves.size());
+        assertEquals("003", steves.get(0).getId());
+        assertEquals(1, studentService.findStudentsByNamePrefix("stev", 1).size());
+
+        List<Student> bornBefore2005 = studentService.findStudentsBornBetween(LocalDate.MIN,
+                LocalDate.of(2004, 12, 31), 10);
+        assertEquals(2, bornBefore2005.size());
+        assertEquals("004", bornBefore2005.get(0).getId());
+        assertEquals("001", bornBefore2005.get(1).getId());
+
+        // Emails are unique; re-subscribing the same id with its own email is allowed
+        assertThrows(IllegalArgumentException.class, () -> studentService.subscribeStudent(
+                new Student("005", "Copy Cat", "JohnDoe@gmail.com", LocalDate.EPOCH)));
+        assertFalse(studentService.isSubscribed("005"));
+        studentService.subscribeStudent(new Student("004", "Steven Stone", "stone@gmail.com", LocalDate.EPOCH));
+        assertNull(studentService.findStudentByEmail("steven@gmail.com"));
+        assertEquals("004", studentService.findStudentByEmail("stone@gmail.com").getId());
+    }
+
+    @Test
+    @DisplayName("Course filtered pages come out in order for small and large rosters, and empty for unknown courses.")
+    void courseFilteredPages() {
+        CourseService courses = new CourseService();
+        for (int i = 10; i < 60; i++) {
+            studentService.subscribeStudent(new Student("S" + i, "Name " + (99 - i), "s" + i + "@gmail.com",
+                    LocalDate.EPOCH));
+            // two students in the small course, all but ten in the large one
+            if (i % 20 == 0) {
+                studentService.enrollToCourse("S" + i, courses.getCourse("INTRO-CS-1"));
+            }
+            if (i >= 20) {
+                studentService.enrollToCourse("S" + i, courses.getCourse("INTRO-WEB-2"));
+            }
+        }
+
+        assertEquals(List.of("S20", "S40"), pagedIds(StudentSort.ID, "INTRO-CS-1"));
+        assertEquals(List.of("S40", "S20"), pagedIds(StudentSort.NAME, "INTRO-CS-1"));
+        List<String> large = pagedIds(StudentSort.NAME, "INTRO-WEB-2");
+        assertEquals(40, large.size());
+        assertEquals("S59", large.get(0));
+        assertEquals("S20", large.get(39));
+        assertTrue(pagedIds(StudentSort.ID, "NO-SUCH-COURSE").isEmpty());
+    }
+
+    private List<String> pagedIds(StudentSort sort, String courseCode) {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            StudentPage page = studentService.queryStudents(sort, courseCode, cursor, 2);
+            page.getStudents().forEach(student -> ids.add(student.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Enrollments are shared by both services and enrolling twice has no effect.")
+    void sharedEnrollmentIndex() {
+        EnrollmentIndex enrollments = new EnrollmentIndex();
+        StudentService students = new StudentService(enrollments);
+        CourseService courses = new CourseService(enrollments);
+        Course course = courses.getCourse("INTRO-WEB-2");
+
+        courses.enrollStudent("INTRO-WEB-2", students.findStudent("001"));
+        courses.enrollStudent("INTRO-WEB-2", students.findStudent("001"));
+        students.enrollToCourse("001", course);
+        students.enrollToCourse("002", course);
+
+        assertEquals(2, courses.getEnrolledCount("INTRO-WEB-2"));
+        assertEquals(2, courses.getEnrolledStudents("INTRO-WEB-2").size());
+        assertTrue(students.findStudent("002").isAttendingCourse("INTRO-WEB-2"));
+        assertEquals(1, students.findStudent("001").getApprovedCourses().size());
+
+        // A replaced student leaves the rosters together with its old enrollments
+        students.subscribeStudent(new Student("002", "May Fair", "mayfair@gmail.com", LocalDate.EPOCH));
+        assertFalse(enrollments.isEnrolled("INTRO-WEB-2", "002"));
+        assertEquals(1, courses.getEnrolledCount("INTRO-WEB-2"));
+
+        // Unenrolling updates both sides and keeps the grade
+        Student first = students.findStudent("001");
+        first.gradeInCourse("INTRO-WEB-2", 80.0);
+        assertEquals(1, first.getPassedCourseCount());
+        assertTrue(enrollments.unenroll(first, course));
+        assertFalse(enrollments.unenroll(first, course));
+        assertFalse(first.isAttendingCourse("INTRO-WEB-2"));
+        assertEquals(0, first.getPassedCourseCount());
+        assertEquals(80.0, first.getGrade("INTRO-WEB-2"), 1e-9);
+        assertEquals(0, courses.getEnrolledCount("INTRO-WEB-2"));
+    }
+
+}
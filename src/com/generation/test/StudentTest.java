@@ -0,0 +1,142 @@
+package com.generation.test;
+
+import com.generation.model.Course;
+import com.generation.model.CourseCodes;
+import com.generation.model.Student;
+import com.generation.model.StudentIds;
+import com.generation.utils.DateParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class StudentTest {
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        student = new Student("001", "John Doe", "johndoe@gmail.com", LocalDate.EPOCH);
+    }
+
+    @Test
+    @DisplayName("Average is 0 until the first grade and follows every new grade.")
+    void averageFollowsGrades() {
+        assertEquals(0.0, student.getAverage(), 1e-9);
+
+        student.gradeInCourse("INTRO-CS-1", 60.0);
+        student.gradeInCourse("INTRO-CS-2", 90.0);
+
+        assertEquals(75.0, student.getAverage(), 1e-9);
+        assertEquals(75.0, student.getAverageGrade(), 1e-9);
+        assertEquals(150.0, student.getTotalGrade(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Regrading a course replaces its grade in the total and the average.")
+    void regradingSameCourse() {
+        student.gradeInCourse("INTRO-CS-1", 60.0);
+        student.gradeInCourse("INTRO-CS-2", 90.0);
+
+        assertEquals(60.0, student.gradeInCourse("INTRO-CS-1", 80.0), 1e-9);
+        assertEquals(2, student.getGradedCourseCount());
+        assertEquals(170.0, student.getTotalGrade(), 1e-9);
+        assertEquals(85.0, student.getAverage(), 1e-9);
+
+        // Grading the same value again changes nothing
+        student.gradeInCourse("INTRO-CS-1", 80.0);
+        assertEquals(85.0, student.getAverage(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Passed courses, counts and credits follow enrollment and grading.")
+    void passedCourses() {
+        Course cs1 = new Course("INTRO-CS-1", "Introduction to Computer Science", 9, null);
+        Course cs2 = new Course("INTRO-CS-2", "Introduction to Algorithms", 6, null);
+        student.enrollToCourse(cs1);
+        student.enrollToCourse(cs2);
+        assertTrue(student.getPassedCourses().isEmpty());
+
+        student.gradeInCourse("INTRO-CS-1", 70.0);
+        student.gradeInCourse("INTRO-CS-2", 40.0);
+        assertEquals(List.of(cs1), student.getPassedCourses());
+        assertEquals(1, student.getPassedCourseCount());
+        assertEquals(9, student.getPassedCredits());
+        assertTrue(student.hasPassedCourse("INTRO-CS-1"));
+        assertFalse(student.hasPassedCourse("INTRO-CS-2"));
+
+        // The cached list is reused until the passed set changes
+        assertSame(student.getPassedCourses(), student.getPassedCourses());
+
+        // Regrading flips the state both ways
+        student.gradeInCourse("INTRO-CS-1", 45.0);
+        student.gradeInCourse("INTRO-CS-2", 50.0);
+        assertEquals(List.of(cs2), student.getPassedCourses());
+        assertEquals(6, student.getPassedCredits());
+
+        // A grade recorded before enrolling counts once the student enrolls
+        student.gradeInCourse("INTRO-CS-3", 90.0);
+        assertFalse(student.hasPassedCourse("INTRO-CS-3"));
+        student.enrollToCourse(new Course("INTRO-CS-3", "Algorithm Design", 3, null));
+        assertEquals(2, student.getPassedCourseCount());
+        assertEquals(9, student.getPassedCredits());
+    }
+
+
+    @Test
+    @DisplayName("Ids and course codes are interned: equal values share one instance and one handle.")
+    void internedHandles() {
+        Student replacement = new Student(new String("001"), "John Doe", "johndoe@gmail.com", LocalDate.EPOCH);
+        assertSame(student.getId(), replacement.getId());
+        assertEquals(student.getHandle(), replacement.getHandle());
+        assertEquals("001", StudentIds.idOf(student.getHandle()));
+
+        Course course = new Course(new String("INTRO-CS-1"), "Introduction to Computer Science", 9, null);
+        Course same = new Course("INTRO-CS-1", "Introduction to Computer Science", 9, null);
+        assertSame(course.getCode(), same.getCode());
+        assertEquals(CourseCodes.idOf("INTRO-CS-1"), course.getId());
+        assertEquals(course, same);
+
+        student.enrollToCourse(course);
+        student.enrollToCourse(same);
+        assertEquals(1, student.getApprovedCourses().size());
+        assertTrue(student.isAttendingCourse(course.getId()));
+        assertTrue(student.isAttendingCourse(new String("INTRO-CS-1")));
+        assertFalse(student.isAttendingCourse(-1));
+        assertSame(course, student.getCourse("INTRO-CS-1"));
+    }
+
+    @Test
+    @DisplayName("Birth dates are epoch days; the shared parser agrees with LocalDate and rejects invalid dates.")
+    void birthDates() {
+        for (LocalDate date = LocalDate.of(1900, 1, 1); date.getYear() <= 2024; date = date.plusDays(1)) {
+            int epochDay = (int) date.toEpochDay();
+            String text = date.getDayOfMonth() + "/" + date.getMonthValue() + "/" + date.getYear();
+            assertEquals(epochDay, DateParser.parseEpochDay(text), text);
+            assertEquals(date.getYear(), DateParser.yearOf(epochDay));
+            assertEquals(date.getMonthValue(), DateParser.monthOf(epochDay));
+            assertEquals(date.getDayOfMonth(), DateParser.dayOfMonthOf(epochDay));
+            assertEquals(epochDay, DateParser.fromEpochMillis(DateParser.toEpochMillis(epochDay)));
+        }
+        assertEquals(DateParser.parseEpochDay("29/02/2000"), DateParser.parseMonthFirstEpochDay("02/29/2000"));
+        // the year after this one parses; callers reject future birth dates against today()
+        int nextYear = LocalDate.now().getYear() + 1;
+        assertEquals(LocalDate.of(nextYear, 1, 1).toEpochDay(), DateParser.parseEpochDay("1/1/" + nextYear));
+        for (String invalid : new String[]{"29/02/2001", "31/04/2000", "1/13/2000", "22/22/22", "01/01/1899",
+                "01-01-2000", "/01/2000", "01/01/", "1/1/2000/", " 1/1/2000", "", "0000000001/01/2000", "1/1/10000"}) {
+            assertEquals(DateParser.INVALID, DateParser.parseEpochDay(invalid), invalid);
+        }
+
+        assertEquals(LocalDate.EPOCH, student.getBirthDate());
+        assertEquals(0, student.getBirthEpochDay());
+        Student unknown = new Student("U1", "Unknown", "unknown@example.com", (LocalDate) null);
+        assertFalse(unknown.hasBirthDate());
+        assertNull(unknown.getBirthDate());
+        assertTrue(unknown.toString().endsWith("birthDate=null}"));
+    }
+}
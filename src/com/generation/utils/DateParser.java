@@ -0,0 +1,176 @@
+package com.generation.utils;
+
+import java.util.TimeZone;
+
+// Strict date parsing shared by the CLI, the GUI, the HTTP API and the bulk importers. Dates are
+// epoch days (days since 1970-01-01, the same numbers as LocalDate.toEpochDay). Text is parsed
+// straight from its characters and days are converted with plain arithmetic, so nothing is
+// allocated and every method is safe to call from any thread.
+public class DateParser
+{
+    // Returned by the parse methods for text that is not a valid date
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    private static final int MIN_YEAR = 1900;
+
+    // Keeps the day arithmetic in range and years at four digits; whether a date may lie in the
+    // future is up to the caller, compare it with today()
+    private static final int MAX_YEAR = 9999;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private static final int DAYS_PER_CYCLE = 146_097;
+
+    private static final int DAYS_0000_TO_1970 = DAYS_PER_CYCLE * 5 - ( 30 * 365 + 7 );
+
+    // Looked up once; TimeZone.getDefault() returns a new clone on every call
+    private static final TimeZone zone = TimeZone.getDefault();
+
+    // Epoch day of a DD/MM/YYYY date, or INVALID
+    public static int parseEpochDay( CharSequence text )
+    {
+        return parse( text, true );
+    }
+
+    // Epoch day of a MM/DD/YYYY date, or INVALID
+    public static int parseMonthFirstEpochDay( CharSequence text )
+    {
+        return parse( text, false );
+    }
+
+    private static int parse( CharSequence text, boolean dayFirst )
+    {
+        if ( text == null )
+        {
+            return INVALID;
+        }
+        int first = 0;
+        int second = 0;
+        int field = 0;
+        int value = 0;
+        int digits = 0;
+        for ( int i = 0; i < text.length(); i++ )
+        {
+            char c = text.charAt( i );
+            if ( c >= '0' && c <= '9' )
+            {
+                // nine digits cannot overflow, and no valid field is that long
+                if ( ++digits > 9 )
+                {
+                    return INVALID;
+                }
+                value = value * 10 + ( c - '0' );
+            }
+            else if ( c == '/' && digits > 0 && field < 2 )
+            {
+                if ( field++ == 0 )
+                {
+                    first = value;
+                }
+                else
+                {
+                    second = value;
+                }
+                value = 0;
+                digits = 0;
+            }
+            else
+            {
+                return INVALID;
+            }
+        }
+        if ( field != 2 || digits == 0 )
+        {
+            return INVALID;
+        }
+        int day = dayFirst ? first : second;
+        int month = dayFirst ? second : first;
+        return isValidDate( day, month, value ) ? epochDay( value, month, day ) : INVALID;
+    }
+
+    public static boolean isValidDate( int day, int month, int year )
+    {
+        // Basic validation
+        if ( month < 1 || month > 12 || day < 1 || day > 31 || year < MIN_YEAR || year > MAX_YEAR )
+        {
+            return false;
+        }
+
+        // Validate days in month, February has 29 days in a leap year
+        int maxDay = month == 2 && isLeapYear( year ) ? 29 : DAYS_IN_MONTH[month - 1];
+        return day <= maxDay;
+    }
+
+    public static boolean isLeapYear( int year )
+    {
+        return ( year % 4 == 0 && year % 100 != 0 ) || ( year % 400 == 0 );
+    }
+
+    // Epoch day of a valid date; the arithmetic of LocalDate.toEpochDay for years from 0 on
+    public static int epochDay( int year, int month, int day )
+    {
+        int total = 365 * year + ( year + 3 ) / 4 - ( year + 99 ) / 100 + ( year + 399 ) / 400;
+        total += ( 367 * month - 362 ) / 12 + day - 1;
+        if ( month > 2 )
+        {
+            total -= isLeapYear( year ) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    public static int yearOf( int epochDay )
+    {
+        return civil( epochDay ) >> 9;
+    }
+
+    // 1 to 12
+    public static int monthOf( int epochDay )
+    {
+        return civil( epochDay ) >> 5 & 0xF;
+    }
+
+    public static int dayOfMonthOf( int epochDay )
+    {
+        return civil( epochDay ) & 0x1F;
+    }
+
+    // year << 9 | month << 5 | day, the arithmetic of LocalDate.ofEpochDay for years from 0 on
+    private static int civil( int epochDay )
+    {
+        // days since 0000-03-01, so the leap day is the last day of the year
+        int zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        int year = (int) ( ( 400L * zeroDay + 591 ) / DAYS_PER_CYCLE );
+        int dayOfYear = zeroDay - ( 365 * year + year / 4 - year / 100 + year / 400 );
+        if ( dayOfYear < 0 )
+        {
+            year--;
+            dayOfYear = zeroDay - ( 365 * year + year / 4 - year / 100 + year / 400 );
+        }
+        int marchMonth = ( dayOfYear * 5 + 2 ) / 153;
+        int month = ( marchMonth + 2 ) % 12 + 1;
+        int day = dayOfYear - ( marchMonth * 306 + 5 ) / 10 + 1;
+        year += marchMonth / 10;
+        return year << 9 | month << 5 | day;
+    }
+
+    // Today's epoch day in the default time zone
+    public static int today()
+    {
+        return fromEpochMillis( System.currentTimeMillis() );
+    }
+
+    // Epoch day of an instant in the default time zone
+    public static int fromEpochMillis( long millis )
+    {
+        return (int) Math.floorDiv( millis + zone.getOffset( millis ), MILLIS_PER_DAY );
+    }
+
+    // The instant of local midnight on the epoch day, as java.util.Date and Calendar used to store it
+    public static long toEpochMillis( int epochDay )
+    {
+        long local = epochDay * MILLIS_PER_DAY;
+        return local - zone.getOffset( local - zone.getOffset( local ) );
+    }
+}
@@ -0,0 +1,235 @@
+package com.generation.utils;
+
+import com.generation.model.Course;
+import com.generation.model.Module;
+import com.generation.model.Student;
+import com.generation.service.CourseService;
+import com.generation.service.StudentService;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+// Streams the student and course summaries to any Appendable (a StringBuilder for the GUI, a
+// buffered Writer for the console or a file). Fields are appended directly and grades are
+// formatted without String.format, so rendering a large roster allocates very little.
+public class SummaryRenderer
+{
+    // Pass as limit to render every remaining student
+    public static final int ALL = Integer.MAX_VALUE;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Appendable out;
+
+    public SummaryRenderer( Appendable out )
+    {
+        this.out = out;
+    }
+
+    // Renderer over a byte stream; call flush() when done
+    public static SummaryRenderer forOutputStream( OutputStream stream )
+    {
+        return new SummaryRenderer(
+            new BufferedWriter( new OutputStreamWriter( stream, StandardCharsets.UTF_8 ), BUFFER_SIZE ) );
+    }
+
+    // Renders up to limit students starting at offset and returns how many were rendered
+    public int renderStudents( StudentService studentService, int offset, int limit )
+    {
+        try
+        {
+            out.append( "Enrolled Students\n" );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        Iterator<Student> students = studentService.getStudents().values().iterator();
+        for ( int skipped = 0; skipped < offset && students.hasNext(); skipped++ )
+        {
+            students.next();
+        }
+        int rendered = 0;
+        while ( rendered < limit && students.hasNext() )
+        {
+            renderStudent( students.next() );
+            rendered++;
+        }
+        return rendered;
+    }
+
+    // Renders one student with the enrolled courses and grades
+    public void renderStudent( Student student )
+    {
+        try
+        {
+            appendStudent( student );
+            out.append( '\n' );
+            List<Course> enrolledCourses = student.getApprovedCourses();
+            if ( enrolledCourses.isEmpty() )
+            {
+                out.append( "\tNo course found.\n" );
+                return;
+            }
+            out.append( "\tEnrolled Courses\n" );
+            for ( Course course : enrolledCourses )
+            {
+                out.append( '\t' );
+                appendCourse( course );
+                out.append( '\n' );
+                // Show grade if student has been graded
+                double grade = student.getGrade( course.getCode() );
+                if ( !Double.isNaN( grade ) )
+                {
+                    out.append( "\t\tGrade: " );
+                    appendGrade( out, grade );
+                    out.append( '\n' );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    public void renderCourses( CourseService courseService )
+    {
+        renderCatalog( courseService );
+        try
+        {
+            out.append( "Enrolled Students\n" );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        for ( String courseCode : courseService.getEnrolledCourseCodes() )
+        {
+            renderRoster( courseService, courseCode );
+        }
+    }
+
+    // Renders the list of available courses
+    public void renderCatalog( CourseService courseService )
+    {
+        try
+        {
+            out.append( "Available Courses:\n" );
+            for ( Course course : courseService.getCourses() )
+            {
+                appendCourse( course );
+                out.append( '\n' );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    // Renders the students enrolled in one course
+    public void renderRoster( CourseService courseService, String courseCode )
+    {
+        try
+        {
+            out.append( "Students on Course " ).append( courseCode ).append( ": \n" );
+            for ( Student student : courseService.getEnrolledStudents( courseCode ) )
+            {
+                appendStudent( student );
+                out.append( '\n' );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    public void flush()
+    {
+        if ( out instanceof Flushable )
+        {
+            try
+            {
+                ( (Flushable) out ).flush();
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    // Same text as Student.toString()
+    private void appendStudent( Student student )
+        throws IOException
+    {
+        out.append( "Student {" ).append( student.getId() ).append( '\'' )
+            .append( ", name='" ).append( student.getName() ).append( '\'' )
+            .append( ", email='" ).append( student.getEmail() ).append( '\'' )
+            .append( ", birthDate=" );
+        if ( student.hasBirthDate() )
+        {
+            appendDate( out, student.getBirthEpochDay() );
+        }
+        else
+        {
+            out.append( "null" );
+        }
+        out.append( '}' );
+    }
+
+    // Same text as Course.toString()
+    private void appendCourse( Course course )
+        throws IOException
+    {
+        out.append( "Course{code='" ).append( course.getCode() ).append( '\'' )
+            .append( ", name='" ).append( course.getName() ).append( '\'' )
+            .append( ", credits=" ).append( Integer.toString( course.getCredits() ) )
+            .append( ", module=" );
+        Module module = course.getModule();
+        if ( module == null )
+        {
+            out.append( "null" );
+        }
+        else
+        {
+            out.append( "Module{name='" ).append( module.getName() ).append( "'}" );
+        }
+        out.append( '}' );
+    }
+
+    // Appends the date as yyyy-MM-dd like LocalDate.toString(), for years 1000 to 9999
+    private static void appendDate( Appendable out, int epochDay )
+        throws IOException
+    {
+        int month = DateParser.monthOf( epochDay );
+        int day = DateParser.dayOfMonthOf( epochDay );
+        out.append( Integer.toString( DateParser.yearOf( epochDay ) ) )
+            .append( '-' ).append( (char) ( '0' + month / 10 ) ).append( (char) ( '0' + month % 10 ) )
+            .append( '-' ).append( (char) ( '0' + day / 10 ) ).append( (char) ( '0' + day % 10 ) );
+    }
+
+    // Appends the grade with two decimals, rounding half up like String.format("%.2f")
+    public static void appendGrade( Appendable out, double grade )
+        throws IOException
+    {
+        long hundredths = Math.round( Math.abs( grade ) * 100 );
+        if ( grade < 0 && hundredths != 0 )
+        {
+            out.append( '-' );
+        }
+        long whole = hundredths / 100;
+        int fraction = (int) ( hundredths % 100 );
+        out.append( Long.toString( whole ) ).append( '.' )
+            .append( (char) ( '0' + fraction / 10 ) ).append( (char) ( '0' + fraction % 10 ) );
+    }
+}